@@ -2,8 +2,11 @@ package com.pm.analyticsservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// Needed for AggregateCheckpointer
+@EnableScheduling
 public class AnalyticsServiceApplication {
 
     public static void main(String[] args) {
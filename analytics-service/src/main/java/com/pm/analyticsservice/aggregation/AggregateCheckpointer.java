@@ -0,0 +1,84 @@
+package com.pm.analyticsservice.aggregation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+@Component
+// Writes the aggregates to disk periodically and loads them back at startup, so a restart doesn't
+// lose the windows. The checkpoint holds the partition offsets its counts cover and KafkaConsumer seeks
+// there on assignment, so events after the last checkpoint are read again and counted exactly once,
+// whatever offsets Kafka had committed
+public class AggregateCheckpointer {
+    private static final Logger log = LoggerFactory.getLogger(AggregateCheckpointer.class);
+    // bump when the file layout changes, old checkpoints are then ignored
+    private static final int FORMAT_VERSION = 2;
+
+    private final PatientEventAggregator aggregator;
+    private final Path checkpointPath;
+
+    public AggregateCheckpointer(PatientEventAggregator aggregator,
+                                 @Value("${analytics.checkpoint.path:data/analytics-checkpoint.bin}") String checkpointPath) {
+        this.aggregator = aggregator;
+        this.checkpointPath = Paths.get(checkpointPath);
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(checkpointPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath)))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                log.warn("Ignoring analytics checkpoint with version {}", version);
+                return;
+            }
+            aggregator.readFrom(in);
+            log.info("Restored analytics aggregates from {}", checkpointPath);
+        } catch (IOException e) {
+            log.warn("Could not restore analytics checkpoint {}: {}", checkpointPath, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.checkpoint.interval-ms:30000}",
+            initialDelayString = "${analytics.checkpoint.interval-ms:30000}")
+    public void checkpoint() {
+        try {
+            byte[] snapshot = aggregator.snapshot();
+            if (snapshot == null) {
+                return;
+            }
+            Path parent = checkpointPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // write to a temp file first so a crash mid write never leaves a broken checkpoint
+            Path tmp = Files.createTempFile(parent, "analytics-checkpoint", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.write(snapshot);
+            }
+            Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write analytics checkpoint {}: {}", checkpointPath, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+}
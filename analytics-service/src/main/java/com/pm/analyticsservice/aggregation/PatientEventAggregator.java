@@ -0,0 +1,154 @@
+package com.pm.analyticsservice.aggregation;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+// Keeps the analytics aggregates in memory as events arrive, so dashboards read precomputed numbers
+// instead of scanning the patient database. Next to the counts it keeps, per partition, the offset of the
+// next event to read, so a snapshot says exactly which events it already includes
+public class PatientEventAggregator {
+    public static final String PATIENT_CREATED = "PATIENT_CREATED";
+
+    public enum Resolution {
+        // last 24 hours by minute, last 7 days by hour, last year by day
+        MINUTE(60_000L, 24 * 60),
+        HOUR(60 * 60_000L, 7 * 24),
+        DAY(24 * 60 * 60_000L, 366);
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Resolution(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+    }
+
+    private final Map<Resolution, WindowedCounter> registrations = new EnumMap<>(Resolution.class);
+    private final Map<String, LongAdder> eventTypeCounts = new ConcurrentHashMap<>();
+    // partition -> offset of the first event not counted yet
+    private final Map<Integer, Long> nextOffsets = new ConcurrentHashMap<>();
+    // set on every event so the checkpointer can skip writing when nothing changed
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    // listener threads record under the read lock, a snapshot takes the write lock so counts and offsets match
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    public PatientEventAggregator() {
+        for (Resolution resolution : Resolution.values()) {
+            registrations.put(resolution, new WindowedCounter(resolution.bucketMillis, resolution.buckets));
+        }
+    }
+
+    // Counts the event at offset of partition and moves that partition past it
+    public void record(String eventType, long timestampMillis, int partition, long offset) {
+        snapshotLock.readLock().lock();
+        try {
+            eventTypeCounts.computeIfAbsent(eventType, type -> new LongAdder()).increment();
+            if (PATIENT_CREATED.equals(eventType)) {
+                for (WindowedCounter counter : registrations.values()) {
+                    counter.add(timestampMillis, 1);
+                }
+            }
+            advance(partition, offset);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Moves past an event that can't be counted, e.g. one that doesn't parse
+    public void skip(int partition, long offset) {
+        snapshotLock.readLock().lock();
+        try {
+            advance(partition, offset);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Where to resume reading partition, empty when no event of it has been counted yet
+    public OptionalLong nextOffset(int partition) {
+        Long offset = nextOffsets.get(partition);
+        return offset == null ? OptionalLong.empty() : OptionalLong.of(offset);
+    }
+
+    private void advance(int partition, long offset) {
+        nextOffsets.merge(partition, offset + 1, Math::max);
+        dirty.set(true);
+    }
+
+    public long[] registrations(Resolution resolution, long nowMillis, int buckets) {
+        return registrations.get(resolution).lastBuckets(nowMillis, buckets);
+    }
+
+    public long bucketMillis(Resolution resolution) {
+        return resolution.bucketMillis;
+    }
+
+    public Map<String, Long> eventTypeCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        eventTypeCounts.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    // Counts and offsets as of one instant, null when nothing changed since the last snapshot.
+    // Serialized under the lock, the caller writes the bytes out after it's released
+    byte[] snapshot() throws IOException {
+        snapshotLock.writeLock().lock();
+        try {
+            if (!dirty.getAndSet(false)) {
+                return null;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (WindowedCounter counter : registrations.values()) {
+                counter.writeTo(out);
+            }
+            Map<String, Long> counts = eventTypeCounts();
+            out.writeInt(counts.size());
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(nextOffsets.size());
+            for (Map.Entry<Integer, Long> entry : new TreeMap<>(nextOffsets).entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    void readFrom(DataInputStream in) throws IOException {
+        for (WindowedCounter counter : registrations.values()) {
+            counter.readFrom(in);
+        }
+        int types = in.readInt();
+        for (int i = 0; i < types; i++) {
+            String type = in.readUTF();
+            long count = in.readLong();
+            LongAdder adder = new LongAdder();
+            adder.add(count);
+            eventTypeCounts.put(type, adder);
+        }
+        int partitions = in.readInt();
+        for (int i = 0; i < partitions; i++) {
+            nextOffsets.put(in.readInt(), in.readLong());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pm.analyticsservice.aggregation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Ring buffer of counts, one slot per time bucket (e.g. one minute). A slot is reused once its bucket
+// falls out of the window, so memory stays fixed no matter how many events we see.
+// Plain long arrays behind one lock: the listener threads are few and the critical section is tiny
+public class WindowedCounter {
+    private final long bucketMillis;
+    private final long[] bucketIds;
+    private final long[] counts;
+
+    public WindowedCounter(long bucketMillis, int buckets) {
+        this.bucketMillis = bucketMillis;
+        this.bucketIds = new long[buckets];
+        this.counts = new long[buckets];
+        Arrays.fill(bucketIds, -1);
+    }
+
+    public synchronized void add(long timestampMillis, long delta) {
+        long bucketId = timestampMillis / bucketMillis;
+        int slot = slot(bucketId);
+        if (bucketIds[slot] != bucketId) {
+            if (bucketIds[slot] > bucketId) {
+                // older than the window, the slot already holds a newer bucket
+                return;
+            }
+            bucketIds[slot] = bucketId;
+            counts[slot] = 0;
+        }
+        counts[slot] += delta;
+    }
+
+    // Counts of the last n buckets up to and including the one containing nowMillis, oldest first
+    public synchronized long[] lastBuckets(long nowMillis, int n) {
+        int size = Math.min(n, counts.length);
+        long[] result = new long[size];
+        long newest = nowMillis / bucketMillis;
+        for (int i = 0; i < size; i++) {
+            long bucketId = newest - (size - 1 - i);
+            int slot = slot(bucketId);
+            result[i] = bucketIds[slot] == bucketId ? counts[slot] : 0;
+        }
+        return result;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public int getBuckets() {
+        return counts.length;
+    }
+
+    synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            out.writeLong(bucketIds[i]);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    synchronized void readFrom(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size != counts.length) {
+            throw new IOException("Checkpoint has " + size + " buckets, expected " + counts.length);
+        }
+        for (int i = 0; i < size; i++) {
+            bucketIds[i] = in.readLong();
+            counts[i] = in.readLong();
+        }
+    }
+
+    private int slot(long bucketId) {
+        return (int) Math.floorMod(bucketId, (long) counts.length);
+    }
+}
@@ -0,0 +1,49 @@
+package com.pm.analyticsservice.controller;
+
+import com.pm.analyticsservice.aggregation.PatientEventAggregator;
+import com.pm.analyticsservice.aggregation.PatientEventAggregator.Resolution;
+import com.pm.analyticsservice.dto.RegistrationBucketDTO;
+import com.pm.analyticsservice.dto.RegistrationSeriesDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics")
+// Read only view over the in memory aggregates, nothing here touches a database
+public class AnalyticsController {
+    private final PatientEventAggregator aggregator;
+
+    public AnalyticsController(PatientEventAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @GetMapping("/registrations")
+    public ResponseEntity<RegistrationSeriesDTO> getRegistrations(@RequestParam(defaultValue = "MINUTE") Resolution resolution,
+                                                                  @RequestParam(defaultValue = "60") int buckets) {
+        long now = System.currentTimeMillis();
+        long bucketMillis = aggregator.bucketMillis(resolution);
+        long[] counts = aggregator.registrations(resolution, now, Math.max(1, buckets));
+
+        long firstBucketStart = (now / bucketMillis - (counts.length - 1)) * bucketMillis;
+        List<RegistrationBucketDTO> series = new ArrayList<>(counts.length);
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            series.add(new RegistrationBucketDTO(Instant.ofEpochMilli(firstBucketStart + i * bucketMillis).toString(), counts[i]));
+            total += counts[i];
+        }
+        return ResponseEntity.ok().body(new RegistrationSeriesDTO(resolution.name(), total, series));
+    }
+
+    @GetMapping("/event-types")
+    public ResponseEntity<Map<String, Long>> getEventTypeCounts() {
+        return ResponseEntity.ok().body(aggregator.eventTypeCounts());
+    }
+}
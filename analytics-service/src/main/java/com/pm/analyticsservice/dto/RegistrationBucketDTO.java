@@ -0,0 +1,28 @@
+package com.pm.analyticsservice.dto;
+
+public class RegistrationBucketDTO {
+    // ISO-8601 start of the bucket in UTC
+    private String start;
+    private long count;
+
+    public RegistrationBucketDTO(String start, long count) {
+        this.start = start;
+        this.count = count;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public void setStart(String start) {
+        this.start = start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,39 @@
+package com.pm.analyticsservice.dto;
+
+import java.util.List;
+
+public class RegistrationSeriesDTO {
+    private String resolution;
+    private long total;
+    private List<RegistrationBucketDTO> buckets;
+
+    public RegistrationSeriesDTO(String resolution, long total, List<RegistrationBucketDTO> buckets) {
+        this.resolution = resolution;
+        this.total = total;
+        this.buckets = buckets;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<RegistrationBucketDTO> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<RegistrationBucketDTO> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,61 @@
+package com.pm.analyticsservice.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+// Per partition throughput and lag, used to size the consumer group (one listener thread per partition)
+public class ConsumerMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, Counter> consumed = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> lag = new ConcurrentHashMap<>();
+    private final Timer batchTimer;
+    private final Counter failed;
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.batchTimer = Timer.builder("analytics.batch")
+                .description("Time to process one polled batch of patient events")
+                .register(meterRegistry);
+        this.failed = Counter.builder("analytics.events.failed")
+                .description("Patient events that could not be deserialized")
+                .register(meterRegistry);
+    }
+
+    public Timer.Sample startBatch() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordBatch(Timer.Sample sample) {
+        sample.stop(batchTimer);
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    public void recordConsumed(int partition, int records) {
+        consumed.computeIfAbsent(partition, p -> Counter.builder("analytics.events.consumed")
+                .description("Patient events consumed")
+                .tag("partition", String.valueOf(p))
+                .register(meterRegistry)).increment(records);
+    }
+
+    public void recordLag(int partition, long records) {
+        lag.computeIfAbsent(partition, p -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("analytics.events.lag", value, AtomicLong::get)
+                    .description("Records between the consumer position and the end of the partition")
+                    .tag("partition", String.valueOf(p))
+                    .register(meterRegistry);
+            return value;
+        }).set(records);
+    }
+}
@@ -1,25 +1,119 @@
 package com.pm.analyticsservice.kafka;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.analyticsservice.aggregation.PatientEventAggregator;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import patient.events.PatientEvent;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
 @Service
-public class KafkaConsumer {
+// Reads from where the aggregates left off: on assignment each partition the aggregator has seen is sought to
+// its next offset, so neither a restart from a checkpoint nor a rebalance counts an event twice or skips one.
+// Partitions it hasn't seen start from the committed offset
+public class KafkaConsumer implements ConsumerSeekAware {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+    private static final String TOPIC = "patient";
+
+    private final PatientEventAggregator aggregator;
+    private final ConsumerMetrics consumerMetrics;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public KafkaConsumer(PatientEventAggregator aggregator, ConsumerMetrics consumerMetrics,
+                         ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.aggregator = aggregator;
+        this.consumerMetrics = consumerMetrics;
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
 
     // groupId tells the broker which is group is consuming
-    @KafkaListener(topics="patient", groupId = "analytics-service")
-    public void consumeEvent(byte[] event){
-        try {
-            PatientEvent patientEvent = PatientEvent.parseFrom(event);
-            log.info("Received patient event: {}", patientEvent.getEmail());
-        } catch (InvalidProtocolBufferException e) {
-            log.error("Error deserializing event {}", e.getMessage());
+    // One call per poll, offsets are committed once the whole batch returns (ack-mode=batch). The committed
+    // offsets are only a starting point, see onPartitionsAssigned
+    // concurrency should match the partition count of the topic, extra threads just sit idle
+    @KafkaListener(topics = TOPIC, groupId = "analytics-service", batch = "true",
+            concurrency = "${analytics.listener.concurrency:3}")
+    public void consumeEvents(List<byte[]> events,
+                              @Header(KafkaHeaders.RECEIVED_TIMESTAMP) List<Long> timestamps,
+                              @Header(KafkaHeaders.RECEIVED_PARTITION) List<Integer> partitions,
+                              @Header(KafkaHeaders.OFFSET) List<Long> offsets,
+                              @Header(name = KafkaHeaders.BATCH_CONVERTED_HEADERS, required = false)
+                              List<Map<String, Object>> headers,
+                              Consumer<?, ?> consumer){
+        Timer.Sample batch = consumerMetrics.startBatch();
+        // one builder per batch, cleared between records instead of allocating a new message graph each time
+        PatientEvent.Builder builder = PatientEvent.newBuilder();
+        Map<Integer, Integer> perPartition = new HashMap<>();
+
+        for (int i = 0; i < events.size(); i++) {
+            // Spring Kafka only observes record listeners, so each record continues the producer's trace here
+            Map<String, Object> recordHeaders = headers == null ? Map.of() : headers.get(i);
+            Span span = propagator.extract(recordHeaders, KafkaConsumer::header).name("patient-event consume").start();
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                builder.clear().mergeFrom(events.get(i));
+                // events from before schema 2 have no occurred_at, the record timestamp is when they were produced
+                long occurredAt = builder.hasOccurredAt()
+                        ? builder.getOccurredAt().getSeconds() * 1000 + builder.getOccurredAt().getNanos() / 1_000_000
+                        : timestamps.get(i);
+                aggregator.record(builder.getEventType(), occurredAt, partitions.get(i), offsets.get(i));
+            } catch (InvalidProtocolBufferException e) {
+                aggregator.skip(partitions.get(i), offsets.get(i));
+                span.error(e);
+                consumerMetrics.recordFailed();
+                log.error("Error deserializing event {}", e.getMessage());
+            } finally {
+                span.end();
+            }
+            perPartition.merge(partitions.get(i), 1, Integer::sum);
+        }
+
+        perPartition.forEach((partition, count) -> {
+            consumerMetrics.recordConsumed(partition, count);
+            // currentLag is answered from the consumer's last fetch, it doesn't call the broker
+            OptionalLong lag = consumer.currentLag(new TopicPartition(TOPIC, partition));
+            if (lag.isPresent()) {
+                consumerMetrics.recordLag(partition, lag.getAsLong());
+            }
+        });
+        consumerMetrics.recordBatch(batch);
+        log.debug("Consumed {} patient events", events.size());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.keySet().forEach(partition -> {
+            OptionalLong next = aggregator.nextOffset(partition.partition());
+            if (next.isPresent()) {
+                callback.seek(partition.topic(), partition.partition(), next.getAsLong());
+            }
+        });
+    }
+
+    // Header values the mapper doesn't know arrive as raw bytes
+    private static String header(Map<String, Object> headers, String name) {
+        Object value = headers.get(name);
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
         }
+        return value == null ? null : value.toString();
     }
 }
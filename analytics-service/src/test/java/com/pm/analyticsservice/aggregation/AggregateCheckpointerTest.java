@@ -0,0 +1,75 @@
+package com.pm.analyticsservice.aggregation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregateCheckpointerTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restoresCountsTogetherWithTheOffsetsTheyCover() {
+        Path file = dir.resolve("checkpoint.bin");
+        PatientEventAggregator aggregator = new PatientEventAggregator();
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW, 0, 41);
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW, 0, 42);
+        aggregator.record("PATIENT_UPDATED", NOW, 2, 7);
+        aggregator.skip(1, 3);
+        new AggregateCheckpointer(aggregator, file.toString()).checkpoint();
+
+        PatientEventAggregator restored = new PatientEventAggregator();
+        new AggregateCheckpointer(restored, file.toString()).restore();
+
+        assertEquals(Map.of(PatientEventAggregator.PATIENT_CREATED, 2L, "PATIENT_UPDATED", 1L), restored.eventTypeCounts());
+        assertArrayEquals(new long[]{2}, restored.registrations(PatientEventAggregator.Resolution.MINUTE, NOW, 1));
+        assertEquals(OptionalLong.of(43), restored.nextOffset(0));
+        assertEquals(OptionalLong.of(4), restored.nextOffset(1));
+        assertEquals(OptionalLong.of(8), restored.nextOffset(2));
+        assertEquals(OptionalLong.empty(), restored.nextOffset(3));
+    }
+
+    @Test
+    void skipsWritingWhenNothingChanged() throws IOException {
+        Path file = dir.resolve("checkpoint.bin");
+        PatientEventAggregator aggregator = new PatientEventAggregator();
+        AggregateCheckpointer checkpointer = new AggregateCheckpointer(aggregator, file.toString());
+
+        checkpointer.checkpoint();
+        assertFalse(Files.exists(file));
+
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW, 0, 0);
+        checkpointer.checkpoint();
+        assertTrue(Files.exists(file));
+        Files.delete(file);
+        checkpointer.checkpoint();
+        assertFalse(Files.exists(file));
+    }
+
+    // a checkpoint without offsets can't say which events it covers
+    @Test
+    void ignoresACheckpointOfAnOlderFormat() throws IOException {
+        Path file = dir.resolve("checkpoint.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(1);
+        }
+        PatientEventAggregator aggregator = new PatientEventAggregator();
+        new AggregateCheckpointer(aggregator, file.toString()).restore();
+
+        assertTrue(aggregator.eventTypeCounts().isEmpty());
+        assertEquals(OptionalLong.empty(), aggregator.nextOffset(0));
+    }
+}
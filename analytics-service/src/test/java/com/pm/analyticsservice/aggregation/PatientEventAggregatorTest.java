@@ -0,0 +1,57 @@
+package com.pm.analyticsservice.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PatientEventAggregatorTest {
+    private static final long HOUR = 60 * 60_000L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final PatientEventAggregator aggregator = new PatientEventAggregator();
+
+    @Test
+    void onlyCreatedEventsCountAsRegistrations() {
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW, 0, 0);
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW - HOUR, 0, 1);
+        aggregator.record("PATIENT_UPDATED", NOW, 0, 2);
+
+        assertArrayEquals(new long[]{1, 1}, aggregator.registrations(PatientEventAggregator.Resolution.HOUR, NOW, 2));
+        assertArrayEquals(new long[]{2}, aggregator.registrations(PatientEventAggregator.Resolution.DAY, NOW, 1));
+        assertEquals(Map.of(PatientEventAggregator.PATIENT_CREATED, 2L, "PATIENT_UPDATED", 1L),
+                aggregator.eventTypeCounts());
+    }
+
+    @Test
+    void eachResolutionKeepsItsOwnWindow() {
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW - 2 * 24 * HOUR, 0, 0);
+
+        // two days ago is outside the last 24 hours by minute, but inside the week by hour
+        long[] minutes = aggregator.registrations(PatientEventAggregator.Resolution.MINUTE, NOW, 24 * 60);
+        long[] hours = aggregator.registrations(PatientEventAggregator.Resolution.HOUR, NOW, 7 * 24);
+        assertEquals(0, sum(minutes));
+        assertEquals(1, sum(hours));
+    }
+
+    // a redelivered event must not move the partition back
+    @Test
+    void offsetsOnlyMoveForward() {
+        aggregator.record(PatientEventAggregator.PATIENT_CREATED, NOW, 3, 10);
+        aggregator.skip(3, 4);
+
+        assertEquals(OptionalLong.of(11), aggregator.nextOffset(3));
+        assertEquals(OptionalLong.empty(), aggregator.nextOffset(0));
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pm.analyticsservice.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// one-minute buckets, a window of five
+class WindowedCounterTest {
+    private static final long MINUTE = 60_000L;
+    private static final long NOW = 1_000 * MINUTE;
+
+    private final WindowedCounter counter = new WindowedCounter(MINUTE, 5);
+
+    @Test
+    void countsLandInTheBucketOfTheirTimestamp() {
+        counter.add(NOW, 1);
+        counter.add(NOW + MINUTE - 1, 2);
+        counter.add(NOW - MINUTE, 4);
+        counter.add(NOW - 3 * MINUTE, 8);
+
+        assertArrayEquals(new long[]{0, 8, 0, 4, 3}, counter.lastBuckets(NOW, 5));
+        assertArrayEquals(new long[]{4, 3}, counter.lastBuckets(NOW, 2));
+    }
+
+    @Test
+    void neverReturnsMoreBucketsThanTheWindow() {
+        counter.add(NOW, 1);
+        assertArrayEquals(new long[]{0, 0, 0, 0, 1}, counter.lastBuckets(NOW, 60));
+    }
+
+    @Test
+    void bucketsLeaveTheWindowAsTimeMovesOn() {
+        counter.add(NOW, 1);
+        assertArrayEquals(new long[]{1, 0, 0, 0, 0}, counter.lastBuckets(NOW + 4 * MINUTE, 5));
+        assertArrayEquals(new long[]{0, 0, 0, 0, 0}, counter.lastBuckets(NOW + 5 * MINUTE, 5));
+    }
+
+    // the slot of NOW is reused five minutes later and starts again from zero
+    @Test
+    void aReusedSlotStartsFromZero() {
+        counter.add(NOW, 7);
+        counter.add(NOW + 5 * MINUTE, 1);
+
+        assertArrayEquals(new long[]{0, 0, 0, 0, 1}, counter.lastBuckets(NOW + 5 * MINUTE, 5));
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheWindow() {
+        counter.add(NOW, 1);
+        counter.add(NOW - 5 * MINUTE, 100);
+
+        assertArrayEquals(new long[]{0, 0, 0, 0, 1}, counter.lastBuckets(NOW, 5));
+    }
+}
@@ -0,0 +1,106 @@
+package com.pm.analyticsservice.kafka;
+
+import com.google.protobuf.Timestamp;
+import com.pm.analyticsservice.aggregation.PatientEventAggregator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import patient.events.PatientEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class KafkaConsumerTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final PatientEventAggregator aggregator = new PatientEventAggregator();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final KafkaConsumer kafkaConsumer = new KafkaConsumer(aggregator, new ConsumerMetrics(registry),
+            new StaticListableBeanFactory().getBeanProvider(Tracer.class),
+            new StaticListableBeanFactory().getBeanProvider(Propagator.class));
+
+    @Test
+    void countsEachEventAndMovesItsPartitionPastIt() {
+        consume(List.of(created(), created(), new byte[]{(byte) 0xff}),
+                List.of(0, 1, 1), List.of(10L, 20L, 21L));
+
+        assertEquals(Map.of(PatientEventAggregator.PATIENT_CREATED, 2L), aggregator.eventTypeCounts());
+        assertEquals(OptionalLong.of(11), aggregator.nextOffset(0));
+        // the event that didn't parse is passed too, it would fail the same way when read again
+        assertEquals(OptionalLong.of(22), aggregator.nextOffset(1));
+    }
+
+    // after a restart from a checkpoint or a rebalance, reading resumes right after the last counted event
+    @Test
+    void seeksAssignedPartitionsToWhereTheAggregatesLeftOff() {
+        consume(List.of(created()), List.of(0), List.of(10L));
+        ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+
+        kafkaConsumer.onPartitionsAssigned(Map.of(
+                new TopicPartition("patient", 0), 5L,
+                new TopicPartition("patient", 1), 3L), callback);
+
+        verify(callback).seek("patient", 0, 11L);
+        verifyNoMoreInteractions(callback);
+    }
+
+    @Test
+    void publishesThroughputAndLagPerPartition() {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        when(consumer.currentLag(new TopicPartition("patient", 0))).thenReturn(OptionalLong.of(7));
+        when(consumer.currentLag(new TopicPartition("patient", 1))).thenReturn(OptionalLong.empty());
+
+        consume(List.of(created(), created(), new byte[]{(byte) 0xff}), List.of(0, 0, 1), List.of(1L, 2L, 3L), consumer);
+
+        assertEquals(2, registry.get("analytics.events.consumed").tag("partition", "0").counter().count());
+        assertEquals(1, registry.get("analytics.events.consumed").tag("partition", "1").counter().count());
+        assertEquals(7, registry.get("analytics.events.lag").tag("partition", "0").gauge().value());
+        assertNull(registry.find("analytics.events.lag").tag("partition", "1").gauge());
+        assertEquals(1, registry.get("analytics.events.failed").counter().count());
+        assertEquals(1, registry.get("analytics.batch").timer().count());
+    }
+
+    // the builder is reused across a batch, an event without occurred_at must not keep the previous one's
+    @Test
+    void reusedBuilderDoesNotLeakFieldsBetweenEvents() {
+        long dayAgo = NOW - 24 * 60 * 60_000L;
+        byte[] withOccurredAt = PatientEvent.newBuilder().setEventType(PatientEventAggregator.PATIENT_CREATED)
+                .setOccurredAt(Timestamp.newBuilder().setSeconds(dayAgo / 1000)).build().toByteArray();
+
+        consume(List.of(withOccurredAt, created()), List.of(0, 0), List.of(1L, 2L));
+
+        // oldest first: a day ago from occurred_at, now from the record timestamp
+        long[] hours = aggregator.registrations(PatientEventAggregator.Resolution.HOUR, NOW, 25);
+        assertEquals(1, hours[0]);
+        assertEquals(1, hours[24]);
+    }
+
+    private void consume(List<byte[]> events, List<Integer> partitions, List<Long> offsets) {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        when(consumer.currentLag(any())).thenReturn(OptionalLong.empty());
+        consume(events, partitions, offsets, consumer);
+    }
+
+    private void consume(List<byte[]> events, List<Integer> partitions, List<Long> offsets, Consumer<?, ?> consumer) {
+        List<Long> timestamps = events.stream().map(event -> NOW).toList();
+        kafkaConsumer.consumeEvents(events, timestamps, partitions, offsets, null, consumer);
+    }
+
+    private static byte[] created() {
+        return PatientEvent.newBuilder().setEventType(PatientEventAggregator.PATIENT_CREATED).build().toByteArray();
+    }
+}
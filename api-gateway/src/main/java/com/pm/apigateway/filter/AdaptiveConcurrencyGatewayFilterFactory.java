@@ -0,0 +1,134 @@
+package com.pm.apigateway.filter;
+
+import com.pm.apigateway.ratelimit.AdaptiveConcurrencyLimiter;
+import com.pm.apigateway.ratelimit.RateLimitResponses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+// Admission control for one upstream: requests over the adaptive concurrency limit get a 429 right away,
+// 5xx responses and errors from the upstream count as overload and shrink the limit
+public class AdaptiveConcurrencyGatewayFilterFactory extends AbstractGatewayFilterFactory<AdaptiveConcurrencyGatewayFilterFactory.Config> {
+    private final MeterRegistry meterRegistry;
+    private final Counter rejected;
+    // upstream name -> limiter of its current filter. apply() runs again on every route refresh, the gauges are
+    // registered once per name and read through the holder, so they follow the new limiter instead of going stale
+    private final ConcurrentHashMap<String, AtomicReference<AdaptiveConcurrencyLimiter>> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("gateway.requests.rejected")
+                .tag("reason", "concurrency-limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("name", "initialLimit", "maxLimit");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config.getInitialLimit(),
+                config.getMinLimit(), config.getMaxLimit(), config.getBaselineWindow());
+        limiters.computeIfAbsent(config.getName(), this::registerGauges).set(limiter);
+
+        return (exchange, chain) -> {
+            if (!limiter.tryAcquire()) {
+                rejected.increment();
+                return RateLimitResponses.tooManyRequests(exchange, TimeUnit.SECONDS.toNanos(config.getRetryAfterSeconds()));
+            }
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    limiter.release(-1, false);
+                    return;
+                }
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean overloaded = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                limiter.release(System.nanoTime() - start, overloaded);
+            });
+        };
+    }
+
+    private AtomicReference<AdaptiveConcurrencyLimiter> registerGauges(String upstream) {
+        AtomicReference<AdaptiveConcurrencyLimiter> holder = new AtomicReference<>();
+        Gauge.builder("gateway.concurrency.limit", holder, current -> current.get().getLimit())
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", holder, current -> current.get().getInFlight())
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+        return holder;
+    }
+
+    public static class Config {
+        // used as the upstream tag on the limit gauges, give every route using the filter its own name
+        private String name = "default";
+        private int initialLimit = 50;
+        private int minLimit = 5;
+        private int maxLimit = 500;
+        private int baselineWindow = 1000;
+        private long retryAfterSeconds = 1;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getBaselineWindow() {
+            return baselineWindow;
+        }
+
+        public void setBaselineWindow(int baselineWindow) {
+            this.baselineWindow = baselineWindow;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
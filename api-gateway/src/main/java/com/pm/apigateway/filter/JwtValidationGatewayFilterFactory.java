@@ -1,23 +1,43 @@
 package com.pm.apigateway.filter;
 
+import com.pm.apigateway.jwt.LocalJwtVerifier;
+import com.pm.apigateway.jwt.RemoteJwtValidator;
+import com.pm.apigateway.jwt.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
 
 @Component
 // Filter class allows us to intercept Http and apply custom logic to allow access or reject
 // Extends abstractGateway, it will auto apply filter into REQ
 // GatewayFilterFactory is intentional name to allow springboot to look for the filter class
 public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
-    private final WebClient webClient;
+    // sub claim of the verified token, set on the request sent upstream. A value sent by the client is dropped
+    public static final String SUBJECT_HEADER = "X-User-Subject";
+    private static final Logger log = LoggerFactory.getLogger(JwtValidationGatewayFilterFactory.class);
+    private final RemoteJwtValidator remoteJwtValidator;
+    private final LocalJwtVerifier localJwtVerifier;
+    private final boolean localValidation;
 
-    // we are using @value because when we deploy on EC2, the endpoint is going to change
-    public JwtValidationGatewayFilterFactory(WebClient.Builder webClientBuilder, @Value("${auth.service.url}") String authServiceUrl) {
-        this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+    public JwtValidationGatewayFilterFactory(RemoteJwtValidator remoteJwtValidator,
+                                             LocalJwtVerifier localJwtVerifier,
+                                             // local verifies the token in the gateway, remote calls auth-service /validate
+                                             @Value("${auth.jwt.validation-mode:local}") String validationMode) {
+        this.remoteJwtValidator = remoteJwtValidator;
+        this.localJwtVerifier = localJwtVerifier;
+        // without a secret we can't verify locally so we fall back to auth-service
+        this.localValidation = "local".equalsIgnoreCase(validationMode) && localJwtVerifier.isEnabled();
+        log.info("JWT validation mode: {}", localValidation ? "local" : "remote");
     }
 
 
@@ -32,12 +52,31 @@ public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFact
                 return exchange.getResponse().setComplete();
             }
 
-            return webClient.get()
-                    .uri("/validate")
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .toBodilessEntity()
-                    .then(chain.filter(exchange));
+            if (localValidation){
+                // substring starts at 7 because we want to grab token and not "Bearer "
+                Optional<VerifiedToken> verified = localJwtVerifier.verify(token.substring(7));
+                if (verified.isEmpty()){
+                    exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                    return exchange.getResponse().setComplete();
+                }
+                return forward(exchange, chain, verified.get());
+            }
+
+            // concurrent requests with the same token share one /validate call
+            return remoteJwtValidator.validate(token)
+                    .flatMap(verified -> forward(exchange, chain, verified));
         };
     }
+
+    private static Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, VerifiedToken verified) {
+        ServerWebExchange forwarded = exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                    headers.remove(SUBJECT_HEADER);
+                    if (verified.subject() != null) {
+                        headers.set(SUBJECT_HEADER, verified.subject());
+                    }
+                }))
+                .build();
+        return chain.filter(forwarded);
+    }
 }
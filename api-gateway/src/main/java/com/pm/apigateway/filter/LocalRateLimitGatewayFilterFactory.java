@@ -0,0 +1,107 @@
+package com.pm.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pm.apigateway.ratelimit.ClientKeyResolver;
+import com.pm.apigateway.ratelimit.RateLimitResponses;
+import com.pm.apigateway.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+// In memory token bucket per client, each route using the filter gets its own buckets.
+// Nothing is shared between gateway instances, so the effective limit is per instance (no Redis needed)
+public class LocalRateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<LocalRateLimitGatewayFilterFactory.Config> {
+    private final ClientKeyResolver clientKeyResolver;
+    private final Counter rejected;
+
+    public LocalRateLimitGatewayFilterFactory(ClientKeyResolver clientKeyResolver, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.clientKeyResolver = clientKeyResolver;
+        this.rejected = Counter.builder("gateway.requests.rejected")
+                .tag("reason", "rate-limit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity", "keyBy");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Caffeine is striped internally and the buckets are lock free, idle clients are dropped after idleTimeout
+        Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+        boolean bySubject = "subject".equalsIgnoreCase(config.getKeyBy());
+
+        return (exchange, chain) -> {
+            String key = clientKeyResolver.resolve(exchange, bySubject);
+            TokenBucket bucket = buckets.get(key, k -> new TokenBucket(config.getReplenishRate(), config.getBurstCapacity()));
+            long waitNanos = bucket.tryConsume(System.nanoTime());
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+            rejected.increment();
+            return RateLimitResponses.tooManyRequests(exchange, waitNanos);
+        };
+    }
+
+    public static class Config {
+        // tokens per second
+        private double replenishRate = 10;
+        private int burstCapacity = 20;
+        // subject keys by the JWT sub claim and falls back to the client ip, ip always uses the ip
+        private String keyBy = "subject";
+        private long maxClients = 100_000;
+        private Duration idleTimeout = Duration.ofMinutes(5);
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public String getKeyBy() {
+            return keyBy;
+        }
+
+        public void setKeyBy(String keyBy) {
+            this.keyBy = keyBy;
+        }
+
+        public long getMaxClients() {
+            return maxClients;
+        }
+
+        public void setMaxClients(long maxClients) {
+            this.maxClients = maxClients;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+    }
+}
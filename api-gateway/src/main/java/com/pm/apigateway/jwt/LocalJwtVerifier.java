@@ -0,0 +1,127 @@
+package com.pm.apigateway.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Component
+// Verifies HS256 tokens inside the gateway with the same secret as auth-service's JwtUtil,
+// so we don't need a round trip to /validate on every request
+public class LocalJwtVerifier {
+    private static final Logger log = LoggerFactory.getLogger(LocalJwtVerifier.class);
+
+    // null when no jwt.secret is configured, the gateway then has to use the remote /validate call
+    private final JwtParser parser;
+    // token hash -> subject and expiry, we never keep the raw token in memory
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Counter rejectedTokens;
+
+    public LocalJwtVerifier(@Value("${jwt.secret:}") String secret,
+                            @Value("${auth.jwt.cache.max-size:10000}") long maxSize,
+                            @Value("${auth.jwt.cache.max-ttl:PT5M}") Duration maxTtl,
+                            MeterRegistry meterRegistry) {
+        if (secret.isBlank()) {
+            log.warn("jwt.secret is not set, local JWT verification is disabled");
+            this.parser = null;
+        } else {
+            byte[] keyBytes = Base64.getDecoder().decode(secret.getBytes(StandardCharsets.UTF_8));
+            // the parser is immutable and thread safe so we build it once. Only HMAC algorithms can use the
+            // shared secret, so without HS384 and HS512 it accepts HS256 only, what auth-service signs with
+            this.parser = Jwts.parser()
+                    .sig().remove(Jwts.SIG.HS384).remove(Jwts.SIG.HS512).and()
+                    .verifyWith(Keys.hmacShaKeyFor(keyBytes))
+                    .build();
+        }
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.jwt.verified");
+        this.rejectedTokens = Counter.builder("gateway.jwt.rejected")
+                .description("Tokens that failed local verification")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return parser != null;
+    }
+
+    // Empty when the token is rejected
+    public Optional<VerifiedToken> verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return Optional.of(cached);
+        }
+
+        try {
+            // checks the signature and the exp claim
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+            verifiedTokens.put(key, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            rejectedTokens.increment();
+            return Optional.empty();
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // An entry lives until the token's exp, but never longer than maxTtl
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        private final long maxTtlNanos;
+
+        TokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+            long untilExpiry = Math.max(0, token.expiresAt() - System.currentTimeMillis());
+            return Math.min(TimeUnit.MILLISECONDS.toNanos(untilExpiry), maxTtlNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
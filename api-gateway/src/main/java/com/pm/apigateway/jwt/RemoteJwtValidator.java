@@ -0,0 +1,85 @@
+package com.pm.apigateway.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+// Checks tokens with auth-service /validate when the gateway can't verify them itself. Requests that carry
+// the same token while its /validate call is still running share that call and its result (single flight),
+// so a dashboard firing many requests at once costs one round trip. Nothing is kept once the call finishes
+public class RemoteJwtValidator {
+    private final WebClient webClient;
+    // token hash -> the /validate call in flight, we never keep the raw token in memory
+    private final Map<String, Mono<VerifiedToken>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final ObjectMapper objectMapper;
+
+    // we are using @value because when we deploy on EC2, the endpoint is going to change
+    public RemoteJwtValidator(WebClient.Builder webClientBuilder, @Value("${auth.service.url}") String authServiceUrl,
+                              MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+        this.objectMapper = objectMapper;
+        this.coalesced = Counter.builder("gateway.jwt.remote.coalesced")
+                .description("Token validations that joined a /validate call already in flight")
+                .register(meterRegistry);
+        Gauge.builder("gateway.jwt.remote.in.flight", inFlight, Map::size)
+                .description("Distinct tokens with a /validate call in flight")
+                .register(meterRegistry);
+    }
+
+    // Completes with the token's claims when auth-service accepts it, a 401 fails with WebClientResponseException.Unauthorized
+    public Mono<VerifiedToken> validate(String authorizationHeader) {
+        String key = LocalJwtVerifier.hash(authorizationHeader);
+        return Mono.defer(() -> {
+            boolean[] started = {false};
+            Mono<VerifiedToken> call = inFlight.computeIfAbsent(key, k -> {
+                started[0] = true;
+                return webClient.get()
+                        .uri("/validate")
+                        .header(HttpHeaders.AUTHORIZATION, authorizationHeader)
+                        .retrieve()
+                        .toBodilessEntity()
+                        .then(Mono.fromCallable(() -> claims(authorizationHeader)))
+                        // forgotten once the call finishes, a request arriving after that starts a new one
+                        .doFinally(signal -> inFlight.remove(k))
+                        // one upstream subscription, its result goes to every request that joined
+                        .cache();
+            });
+            if (!started[0]) {
+                coalesced.increment();
+            }
+            return call;
+        });
+    }
+
+    // Only read once auth-service has accepted the token, so the payload is the one it signed.
+    // Anything that isn't a readable JWT is still accepted, just without a subject
+    private VerifiedToken claims(String authorizationHeader) {
+        String[] parts = authorizationHeader.substring(7).split("\\.");
+        if (parts.length != 3) {
+            return new VerifiedToken(null, Long.MAX_VALUE);
+        }
+        try {
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            JsonNode subject = payload.get("sub");
+            JsonNode expiration = payload.get("exp");
+            return new VerifiedToken(subject != null && subject.isTextual() ? subject.asText() : null,
+                    expiration != null && expiration.canConvertToLong() ? expiration.asLong() * 1000 : Long.MAX_VALUE);
+        } catch (IOException | IllegalArgumentException e) {
+            return new VerifiedToken(null, Long.MAX_VALUE);
+        }
+    }
+}
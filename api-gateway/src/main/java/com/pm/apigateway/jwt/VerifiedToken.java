@@ -0,0 +1,6 @@
+package com.pm.apigateway.jwt;
+
+// A token the gateway or auth-service accepted. subject is the sub claim (null when the token has none),
+// expiresAt the exp claim in epoch millis
+public record VerifiedToken(String subject, long expiresAt) {
+}
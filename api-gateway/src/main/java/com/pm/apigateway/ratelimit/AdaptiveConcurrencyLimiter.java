@@ -0,0 +1,81 @@
+package com.pm.apigateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Caps the requests in flight to one upstream and moves the cap with its latency, the gradient idea
+// from TCP Vegas / Netflix concurrency-limits: while latency stays near the best seen the limit grows,
+// once requests queue up upstream (latency rises) or fail, it shrinks before the upstream falls over
+public class AdaptiveConcurrencyLimiter {
+    // how much slower than the baseline a response may be before we count it as queueing
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    // the baseline is re-learned every n samples so a permanently slower upstream doesn't shrink us forever
+    private final int baselineWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // samples are dropped while another thread updates, the limit only needs a steady trickle of them
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile double limit;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private int samplesInWindow;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int baselineWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.baselineWindow = baselineWindow;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // rttNanos < 0 means the request was cancelled and tells us nothing about the upstream
+    public void release(long rttNanos, boolean overloaded) {
+        inFlight.decrementAndGet();
+        if (rttNanos < 0 || !updateLock.tryLock()) {
+            return;
+        }
+        try {
+            double current = limit;
+            double next;
+            if (overloaded) {
+                next = current * BACKOFF_RATIO;
+            } else {
+                if (++samplesInWindow >= baselineWindow) {
+                    samplesInWindow = 0;
+                    baselineRttNanos = rttNanos;
+                }
+                baselineRttNanos = Math.min(baselineRttNanos, rttNanos);
+                double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * baselineRttNanos / rttNanos));
+                // sqrt(limit) leaves room for a small queue so we keep probing for more capacity
+                double target = current * gradient + Math.sqrt(current);
+                next = current * (1 - SMOOTHING) + target * SMOOTHING;
+            }
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,24 @@
+package com.pm.apigateway.ratelimit;
+
+import com.pm.apigateway.filter.JwtValidationGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+@Component
+// Works out who a request belongs to for rate limiting. The subject is the one JwtValidation verified,
+// so routes keyed by subject must run JwtValidation before the rate limit filter
+public class ClientKeyResolver {
+    public String resolve(ServerWebExchange exchange, boolean bySubject) {
+        if (bySubject) {
+            String subject = exchange.getRequest().getHeaders().getFirst(JwtValidationGatewayFilterFactory.SUBJECT_HEADER);
+            if (subject != null) {
+                return "sub:" + subject;
+            }
+        }
+        // the real client behind the ALB, server.forward-headers-strategy applies X-Forwarded-For
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "unknown");
+    }
+}
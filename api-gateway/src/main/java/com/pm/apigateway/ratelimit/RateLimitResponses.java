@@ -0,0 +1,21 @@
+package com.pm.apigateway.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+public final class RateLimitResponses {
+    private RateLimitResponses() {
+    }
+
+    // Retry-After only has whole seconds, round up so clients don't come back too early
+    public static Mono<Void> tooManyRequests(ServerWebExchange exchange, long retryAfterNanos) {
+        long seconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,34 @@
+package com.pm.apigateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket kept as a single "theoretical arrival time" (GCRA), so taking a token is one CAS
+// on one long and never blocks. Behaves like a bucket of burstCapacity tokens refilled at
+// replenishRate tokens per second
+public class TokenBucket {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    // the time at which the bucket would be completely full again
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double replenishRate, int burstCapacity) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / replenishRate);
+        this.burstToleranceNanos = emissionIntervalNanos * (burstCapacity - 1L);
+    }
+
+    // 0 when a token was taken, otherwise how many nanos to wait until one is available
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long arrival = current == Long.MIN_VALUE ? nowNanos : Math.max(current, nowNanos);
+            long next = arrival + emissionIntervalNanos;
+            long wait = next - nowNanos - burstToleranceNanos - emissionIntervalNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pm.apigateway.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyGatewayFilterFactoryTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyGatewayFilterFactory factory = new AdaptiveConcurrencyGatewayFilterFactory(registry);
+
+    // a route refresh calls apply() again, the gauge has to follow the new limiter
+    @Test
+    void gaugesFollowTheLimiterOfTheLatestApply() {
+        factory.apply(config("patient-service", 50));
+        assertEquals(50, limitGauge("patient-service").value());
+
+        factory.apply(config("patient-service", 20));
+        System.gc();
+        assertEquals(20, limitGauge("patient-service").value());
+        assertEquals(1, registry.find("gateway.concurrency.limit").gauges().size());
+        assertEquals(0, registry.get("gateway.concurrency.in-flight").tag("upstream", "patient-service").gauge().value());
+    }
+
+    @Test
+    void eachUpstreamGetsItsOwnGauges() {
+        factory.apply(config("patient-service", 50));
+        factory.apply(config("auth-service", 30));
+
+        assertEquals(50, limitGauge("patient-service").value());
+        assertEquals(30, limitGauge("auth-service").value());
+    }
+
+    private Gauge limitGauge(String upstream) {
+        return registry.get("gateway.concurrency.limit").tag("upstream", upstream).gauge();
+    }
+
+    private static AdaptiveConcurrencyGatewayFilterFactory.Config config(String name, int initialLimit) {
+        AdaptiveConcurrencyGatewayFilterFactory.Config config = new AdaptiveConcurrencyGatewayFilterFactory.Config();
+        config.setName(name);
+        config.setInitialLimit(initialLimit);
+        return config;
+    }
+}
@@ -0,0 +1,76 @@
+package com.pm.apigateway.filter;
+
+import com.pm.apigateway.jwt.LocalJwtVerifier;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtValidationGatewayFilterFactoryTest {
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    private final LocalJwtVerifier verifier = new LocalJwtVerifier(SECRET, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+    private final JwtValidationGatewayFilterFactory factory = new JwtValidationGatewayFilterFactory(null, verifier, "local");
+
+    @Test
+    void forwardsTheVerifiedSubjectInsteadOfTheOneTheClientSent() {
+        MockServerWebExchange exchange = exchange("Bearer " + token("jane@example.com"), "admin@example.com");
+
+        assertEquals("jane@example.com", forwardedSubject(exchange));
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherKey() {
+        String forged = Jwts.builder().subject("jane@example.com")
+                .signWith(Keys.hmacShaKeyFor("another-secret-another-secret-xx".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        MockServerWebExchange exchange = exchange("Bearer " + forged, null);
+
+        assertNull(forwardedSubject(exchange));
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    // null when the request never reached the next filter
+    private String forwardedSubject(MockServerWebExchange exchange) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        factory.apply(new Object()).filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+        return forwarded.get() == null ? null
+                : forwarded.get().getRequest().getHeaders().getFirst(JwtValidationGatewayFilterFactory.SUBJECT_HEADER);
+    }
+
+    private static MockServerWebExchange exchange(String authorization, String subject) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/patients")
+                .header(HttpHeaders.AUTHORIZATION, authorization);
+        if (subject != null) {
+            request.header(JwtValidationGatewayFilterFactory.SUBJECT_HEADER, subject);
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private static String token(String subject) {
+        return Jwts.builder()
+                .subject(subject)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+}
@@ -0,0 +1,80 @@
+package com.pm.apigateway.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalJwtVerifierTest {
+    // 512 bits, long enough for HS512 too
+    private static final byte[] KEY = new byte[64];
+    private static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(KEY);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LocalJwtVerifier verifier = new LocalJwtVerifier(Base64.getEncoder().encodeToString(KEY), 100,
+            Duration.ofMinutes(5), registry);
+
+    @Test
+    void acceptsHs256() {
+        String token = Jwts.builder().subject("jane@example.com").expiration(inOneMinute())
+                .signWith(SECRET_KEY, Jwts.SIG.HS256).compact();
+
+        assertEquals("jane@example.com", verifier.verify(token).orElseThrow().subject());
+    }
+
+    // same secret, but auth-service only signs HS256, so nothing else may end up in the cache
+    @Test
+    void rejectsOtherAlgorithmsWithTheSameSecret() {
+        String token = Jwts.builder().subject("jane@example.com").expiration(inOneMinute())
+                .signWith(SECRET_KEY, Jwts.SIG.HS512).compact();
+
+        assertTrue(verifier.verify(token).isEmpty());
+        assertEquals(1, registry.get("gateway.jwt.rejected").counter().count());
+    }
+
+    @Test
+    void repeatedTokensComeFromTheCache() {
+        String token = Jwts.builder().subject("jane@example.com").expiration(inOneMinute())
+                .signWith(SECRET_KEY, Jwts.SIG.HS256).compact();
+
+        verifier.verify(token);
+        verifier.verify(token);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "gateway.jwt.verified").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void rejectsExpiredAndTamperedTokens() {
+        String expired = Jwts.builder().subject("jane@example.com")
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(SECRET_KEY, Jwts.SIG.HS256).compact();
+        String valid = Jwts.builder().subject("jane@example.com").expiration(inOneMinute())
+                .signWith(SECRET_KEY, Jwts.SIG.HS256).compact();
+        String tampered = valid.substring(0, valid.lastIndexOf('.') + 1) + "AAAA";
+
+        assertTrue(verifier.verify(expired).isEmpty());
+        assertTrue(verifier.verify(tampered).isEmpty());
+        assertTrue(verifier.verify("not a token").isEmpty());
+        assertEquals(3, registry.get("gateway.jwt.rejected").counter().count());
+    }
+
+    @Test
+    void disabledWithoutASecret() {
+        LocalJwtVerifier withoutSecret = new LocalJwtVerifier("", 100, Duration.ofMinutes(5),
+                new SimpleMeterRegistry());
+        assertFalse(withoutSecret.isEnabled());
+    }
+
+    private static Date inOneMinute() {
+        return new Date(System.currentTimeMillis() + 60_000);
+    }
+}
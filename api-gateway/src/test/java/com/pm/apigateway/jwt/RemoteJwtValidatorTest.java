@@ -0,0 +1,102 @@
+package com.pm.apigateway.jwt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// auth-service is an exchange function whose responses the test completes by hand, so calls stay in flight
+class RemoteJwtValidatorTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Sinks.One<ClientResponse>> validateCalls = new ArrayList<>();
+    private final RemoteJwtValidator validator = new RemoteJwtValidator(
+            WebClient.builder().exchangeFunction(request -> {
+                Sinks.One<ClientResponse> response = Sinks.one();
+                validateCalls.add(response);
+                return response.asMono();
+            }),
+            "http://auth-service", registry, new ObjectMapper());
+
+    @Test
+    void concurrentValidationsOfOneTokenShareTheCall() throws Exception {
+        String header = bearer("jane@example.com");
+
+        CompletableFuture<VerifiedToken> first = validator.validate(header).toFuture();
+        CompletableFuture<VerifiedToken> second = validator.validate(header).toFuture();
+        assertEquals(1, validateCalls.size());
+        assertEquals(1, registry.get("gateway.jwt.remote.coalesced").counter().count());
+        assertEquals(1, registry.get("gateway.jwt.remote.in.flight").gauge().value());
+
+        respond(0, HttpStatus.OK);
+
+        assertEquals("jane@example.com", first.get().subject());
+        assertEquals("jane@example.com", second.get().subject());
+        assertEquals(0, registry.get("gateway.jwt.remote.in.flight").gauge().value());
+    }
+
+    // nothing is kept once the call finishes, a later request asks auth-service again
+    @Test
+    void finishedCallsAreNotReused() throws Exception {
+        String header = bearer("jane@example.com");
+
+        CompletableFuture<VerifiedToken> first = validator.validate(header).toFuture();
+        respond(0, HttpStatus.OK);
+        first.get();
+        CompletableFuture<VerifiedToken> second = validator.validate(header).toFuture();
+        respond(1, HttpStatus.OK);
+
+        assertEquals("jane@example.com", second.get().subject());
+        assertEquals(2, validateCalls.size());
+        assertEquals(0, registry.get("gateway.jwt.remote.coalesced").counter().count());
+    }
+
+    @Test
+    void differentTokensGetTheirOwnCalls() {
+        validator.validate(bearer("jane@example.com")).toFuture();
+        validator.validate(bearer("john@example.com")).toFuture();
+
+        assertEquals(2, validateCalls.size());
+        assertEquals(2, registry.get("gateway.jwt.remote.in.flight").gauge().value());
+    }
+
+    @Test
+    void rejectionReachesEveryRequestThatJoined() {
+        String header = bearer("jane@example.com");
+
+        CompletableFuture<VerifiedToken> first = validator.validate(header).toFuture();
+        CompletableFuture<VerifiedToken> second = validator.validate(header).toFuture();
+        respond(0, HttpStatus.UNAUTHORIZED);
+
+        for (CompletableFuture<VerifiedToken> request : List.of(first, second)) {
+            ExecutionException failure = assertThrows(ExecutionException.class, request::get);
+            assertInstanceOf(WebClientResponseException.Unauthorized.class, failure.getCause());
+        }
+        assertEquals(0, registry.get("gateway.jwt.remote.in.flight").gauge().value());
+    }
+
+    private void respond(int call, HttpStatus status) {
+        validateCalls.get(call).tryEmitValue(ClientResponse.create(status).build());
+    }
+
+    private static String bearer(String subject) {
+        return "Bearer " + Jwts.builder().subject(subject).expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(new byte[32]), Jwts.SIG.HS256).compact();
+    }
+}
@@ -0,0 +1,76 @@
+package com.pm.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void rejectsOverTheLimitUntilARequestFinishes() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10, 1000);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 500, 1000);
+        complete(limiter, 50, FAST, false);
+        assertTrue(limiter.getLimit() > 10, "limit: " + limiter.getLimit());
+    }
+
+    @Test
+    void neverGrowsPastMaxLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 20, 1000);
+        complete(limiter, 500, FAST, false);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesAboveTheBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 5, 500, 1000);
+        complete(limiter, 10, FAST, false);
+        int beforeQueueing = limiter.getLimit();
+
+        complete(limiter, 20, SLOW, false);
+        assertTrue(limiter.getLimit() < beforeQueueing, limiter.getLimit() + " vs " + beforeQueueing);
+    }
+
+    @Test
+    void backsOffOnOverloadDownToMinLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 5, 500, 1000);
+        complete(limiter, 1, FAST, true);
+        assertEquals(90, limiter.getLimit());
+
+        complete(limiter, 100, FAST, true);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void cancelledRequestsDontMoveTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 500, 1000);
+        complete(limiter, 20, -1, false);
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private static void complete(AdaptiveConcurrencyLimiter limiter, int requests, long rttNanos, boolean overloaded) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(rttNanos, overloaded);
+        }
+    }
+}
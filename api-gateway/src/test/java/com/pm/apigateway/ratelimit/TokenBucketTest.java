@@ -0,0 +1,61 @@
+package com.pm.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 10 tokens per second is one token every 100ms
+class TokenBucketTest {
+    private static final long START = TimeUnit.SECONDS.toNanos(1);
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void allowsABurstOfBurstCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(START));
+        }
+        // the next token is one emission interval away
+        assertEquals(INTERVAL, bucket.tryConsume(START));
+    }
+
+    @Test
+    void refillsAtTheReplenishRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(START);
+        }
+
+        assertTrue(bucket.tryConsume(START + INTERVAL - 1) > 0);
+        assertEquals(0, bucket.tryConsume(START + INTERVAL));
+        assertTrue(bucket.tryConsume(START + INTERVAL) > 0);
+        // two intervals later two more tokens
+        assertEquals(0, bucket.tryConsume(START + 3 * INTERVAL));
+        assertEquals(0, bucket.tryConsume(START + 3 * INTERVAL));
+        assertTrue(bucket.tryConsume(START + 3 * INTERVAL) > 0);
+    }
+
+    @Test
+    void waitingTheReturnedTimeIsEnough() {
+        TokenBucket bucket = new TokenBucket(3, 1);
+        assertEquals(0, bucket.tryConsume(START));
+        long wait = bucket.tryConsume(START);
+        assertTrue(wait > 0);
+        assertEquals(0, bucket.tryConsume(START + wait));
+    }
+
+    @Test
+    void idleTimeNeverFillsPastBurstCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        bucket.tryConsume(START);
+
+        long later = START + TimeUnit.MINUTES.toNanos(1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(later));
+        }
+        assertEquals(INTERVAL, bucket.tryConsume(later));
+    }
+}
@@ -4,7 +4,6 @@ import com.pm.authservice.dto.LoginRequestDTO;
 import com.pm.authservice.model.User;
 import com.pm.authservice.util.JwtUtil;
 import io.jsonwebtoken.JwtException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -12,21 +11,29 @@ import java.util.Optional;
 @Service
 public class AuthService {
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtUtil jwtUtil;
 
-    public AuthService(UserService userService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthService(UserService userService, PasswordHashingService passwordHashingService, JwtUtil jwtUtil) {
         this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtUtil = jwtUtil;
     }
     // password inside db is always encoded. to check if valid, we encode the password given by the user and compare
     // security reasons because once encoded cannot be decoded
     public Optional<String> authenticate(LoginRequestDTO loginRequestDTO) {
-        Optional<String> token = userService.findByEmail(loginRequestDTO.getEmail())
-                .filter(u -> passwordEncoder.matches(loginRequestDTO.getPassword(), u.getPassword()))
-                .map(u -> jwtUtil.generateToken(u.getEmail(), u.getRole()));
-        return token;
+        Optional<User> user = userService.findByEmail(loginRequestDTO.getEmail());
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        PasswordHashingService.MatchResult result =
+                passwordHashingService.matches(loginRequestDTO.getPassword(), user.get().getPassword());
+        if (!result.matches()) {
+            return Optional.empty();
+        }
+        // stored hash used an old work factor, replace it now that we have the raw password
+        result.rehashed().ifPresent(hash -> userService.updatePassword(user.get(), hash));
+        return Optional.of(jwtUtil.generateToken(user.get().getEmail(), user.get().getRole()));
     }
 
     public boolean validateToken(String token){
@@ -3,10 +3,13 @@ package com.pm.authservice.service;
 import com.pm.authservice.model.User;
 import com.pm.authservice.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Service
+// Users are read from the database on every login, never cached: a cached password hash would keep
+// authenticating after the password changed, and the lookup by email is small next to the BCrypt check
 public class UserService {
 
     private final UserRepository userRepository;
@@ -14,7 +17,13 @@ public class UserService {
     public UserService(UserRepository userRepository) {
         this.userRepository = userRepository;
     }
+
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
+
+    @Transactional
+    public void updatePassword(User user, String encodedPassword) {
+        userRepository.findById(user.getId()).ifPresent(stored -> stored.setPassword(encodedPassword));
+    }
 }
@@ -1,6 +1,7 @@
 package com.pm.authservice.util;
 
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,8 +9,6 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
-import java.security.SignatureException;
 import java.util.Base64;
 import java.util.Date;
 
@@ -17,11 +16,19 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
-    private final Key secretKey;
+    private final SecretKey secretKey;
+    // the parser is immutable and thread safe so we build it once. Only HMAC algorithms can use the shared
+    // secret, so without HS384 and HS512 it accepts HS256 only, the algorithm the api-gateway verifies
+    private final JwtParser parser;
+
     // we dont store secretKey in code because github can show visibility, so hide them in env
     public JwtUtil(@Value("${jwt.secret}")String secret) {
         byte[] keyBytes = Base64.getDecoder().decode(secret.getBytes(StandardCharsets.UTF_8));
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser()
+                .sig().remove(Jwts.SIG.HS384).remove(Jwts.SIG.HS512).and()
+                .verifyWith(secretKey)
+                .build();
     }
 
     public String generateToken(String email, String role){
@@ -30,17 +37,15 @@ public class JwtUtil {
                 .claim("role", role)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hrs
-                // encode
-                .signWith(secretKey)
+                // encode, always HS256 whatever the key length
+                .signWith(secretKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public void validateToken(String token){
         try {
-            Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token);
-        } catch(JwtException e){
+            parser.parseSignedClaims(token);
+        } catch(JwtException | IllegalArgumentException e){
             throw new JwtException("Invalid JWT token");
         }
     }
@@ -0,0 +1,36 @@
+package com.pm.authservice.controller;
+
+import com.pm.authservice.exception.GlobalExceptionHandler;
+import com.pm.authservice.exception.LoginThrottledException;
+import com.pm.authservice.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerTest {
+    private final AuthService authService = mock(AuthService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authService))
+            .setControllerAdvice(new GlobalExceptionHandler(3))
+            .build();
+
+    @Test
+    void throttledLoginsGet429WithRetryAfter() throws Exception {
+        when(authService.authenticate(any())).thenThrow(new LoginThrottledException("Password hashing queue is full"));
+
+        mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"jane@example.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.message").value("Too many login attempts, try again later"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.pm.authservice.service;
+
+import com.pm.authservice.dto.LoginRequestDTO;
+import com.pm.authservice.model.User;
+import com.pm.authservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final UserService userService = mock(UserService.class);
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+    private final PasswordHashingService passwordHashingService = new PasswordHashingService(encoder, 5, 1, 4, 5000);
+    private final AuthService authService = new AuthService(userService, passwordHashingService, new JwtUtil(SECRET));
+
+    @AfterEach
+    void stop() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void savesTheRehashedPasswordAfterALogin() {
+        User user = user(new BCryptPasswordEncoder(4).encode("password123"));
+        when(userService.findByEmail("jane@example.com")).thenReturn(Optional.of(user));
+
+        assertTrue(authService.authenticate(login("password123")).isPresent());
+        verify(userService).updatePassword(eq(user), argThat(hash -> encoder.matches("password123", hash)));
+    }
+
+    @Test
+    void rejectsAWrongPasswordWithoutTouchingTheHash() {
+        when(userService.findByEmail("jane@example.com"))
+                .thenReturn(Optional.of(user(new BCryptPasswordEncoder(4).encode("password123"))));
+
+        assertTrue(authService.authenticate(login("password124")).isEmpty());
+        verify(userService, never()).updatePassword(any(), any());
+    }
+
+    // every login reads the user, a password changed since the last login applies at once
+    @Test
+    void checksTheCurrentPasswordOnEveryLogin() {
+        when(userService.findByEmail("jane@example.com"))
+                .thenReturn(Optional.of(user(encoder.encode("password123"))))
+                .thenReturn(Optional.of(user(encoder.encode("changed-password"))));
+
+        assertTrue(authService.authenticate(login("password123")).isPresent());
+        assertTrue(authService.authenticate(login("password123")).isEmpty());
+    }
+
+    @Test
+    void rejectsUnknownUsers() {
+        when(userService.findByEmail("jane@example.com")).thenReturn(Optional.empty());
+
+        assertTrue(authService.authenticate(login("password123")).isEmpty());
+    }
+
+    private static User user(String passwordHash) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("jane@example.com");
+        user.setPassword(passwordHash);
+        user.setRole("ADMIN");
+        return user;
+    }
+
+    private static LoginRequestDTO login(String password) {
+        LoginRequestDTO request = new LoginRequestDTO();
+        request.setEmail("jane@example.com");
+        request.setPassword(password);
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package com.pm.authservice.service;
+
+import com.pm.authservice.exception.LoginThrottledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Low BCrypt costs keep these fast, the cost only matters relative to the configured strength
+class PasswordHashingServiceTest {
+    private PasswordHashingService service;
+
+    @AfterEach
+    void stop() {
+        service.shutdown();
+    }
+
+    @Test
+    void matchesOnlyTheRightPassword() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 4, 1, 4, 5000);
+        String hash = new BCryptPasswordEncoder(4).encode("password123");
+
+        assertTrue(service.matches("password123", hash).matches());
+        assertFalse(service.matches("password124", hash).matches());
+    }
+
+    @Test
+    void rehashesAWeakerHashToTheConfiguredCost() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+        service = new PasswordHashingService(encoder, 5, 1, 4, 5000);
+
+        PasswordHashingService.MatchResult result =
+                service.matches("password123", new BCryptPasswordEncoder(4).encode("password123"));
+
+        String rehashed = result.rehashed().orElseThrow();
+        assertTrue(rehashed.startsWith("$2a$05$"), rehashed);
+        assertTrue(encoder.matches("password123", rehashed));
+    }
+
+    @Test
+    void keepsAHashThatIsAtLeastAsStrong() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), 4, 1, 4, 5000);
+
+        assertTrue(service.matches("password123", new BCryptPasswordEncoder(5).encode("password123"))
+                .rehashed().isEmpty());
+    }
+
+    // a wrong password must not leak a new hash either
+    @Test
+    void neverRehashesOnAMismatch() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(5), 5, 1, 4, 5000);
+
+        assertTrue(service.matches("password124", new BCryptPasswordEncoder(4).encode("password123"))
+                .rehashed().isEmpty());
+    }
+
+    @Test
+    void rejectsLoginsOnceTheQueueIsFull() throws Exception {
+        BlockingEncoder encoder = new BlockingEncoder();
+        service = new PasswordHashingService(encoder, 4, 1, 1, 5000);
+
+        CompletableFuture<?> running = CompletableFuture.runAsync(() -> service.matches("a", "hash"));
+        assertTrue(encoder.started.await(5, TimeUnit.SECONDS));
+        // the only thread is busy and the queue takes one, so of two more logins one waits and one is turned away
+        CompletableFuture<?> second = CompletableFuture.runAsync(() -> service.matches("b", "hash"));
+        CompletableFuture<?> third = CompletableFuture.runAsync(() -> service.matches("c", "hash"));
+        CompletableFuture.anyOf(second, third).exceptionally(e -> null).get(5, TimeUnit.SECONDS);
+
+        encoder.release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        List<Throwable> failures = Stream.of(second, third)
+                .map(login -> login.handle((result, error) -> error).join())
+                .filter(Objects::nonNull)
+                .toList();
+        assertEquals(1, failures.size());
+        assertInstanceOf(LoginThrottledException.class, failures.get(0).getCause());
+    }
+
+    @Test
+    void givesUpOnAStuckCheckAfterTheTimeout() {
+        BlockingEncoder encoder = new BlockingEncoder();
+        service = new PasswordHashingService(encoder, 4, 1, 1, 50);
+
+        assertThrows(LoginThrottledException.class, () -> service.matches("a", "hash"));
+        encoder.release.countDown();
+    }
+
+    // matches blocks until released, so the test decides how long a check takes
+    private static class BlockingEncoder implements PasswordEncoder {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.pm.benchmarks;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import com.pm.billingservice.grpc.BillingGrpcService;
+import com.pm.billingservice.repository.BillingAccountStore;
+import com.pm.billingservice.service.BillingAccountService;
+import com.pm.patientservice.grpc.BillingChannelPool;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Load test of the billing channel pool against a billing server in this JVM over loopback. The server
+// allows few streams per connection, like a loaded billing-service would, so with one channel most of the
+// 64 callers wait for a stream while with a pool they are spread over more connections
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingChannelPoolBenchmark {
+    private static final int MAX_CONCURRENT_STREAMS = 16;
+
+    @Param({"1", "4"})
+    public int poolSize;
+
+    private Path storeDir;
+    private BillingAccountStore store;
+    private Server server;
+    private BillingChannelPool channelPool;
+    private BillingServiceGrpc.BillingServiceBlockingStub stub;
+
+    @Setup
+    public void setUp() throws IOException {
+        storeDir = Files.createTempDirectory("billing-pool-bench");
+        store = new BillingAccountStore(storeDir.resolve("accounts.log"), false);
+        server = NettyServerBuilder.forPort(0)
+                .maxConcurrentCallsPerConnection(MAX_CONCURRENT_STREAMS)
+                .addService(new BillingGrpcService(new BillingAccountService(store)))
+                .build().start();
+        String target = "dns:///localhost:" + server.getPort();
+        channelPool = BillingChannelPool.create(poolSize, () -> NettyChannelBuilder.forTarget(target)
+                .usePlaintext()
+                .defaultLoadBalancingPolicy("round_robin")
+                .build(), null);
+        stub = BillingServiceGrpc.newBlockingStub(channelPool);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException, IOException {
+        channelPool.shutdown(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        store.close();
+        Files.deleteIfExists(storeDir.resolve("accounts.log"));
+        Files.deleteIfExists(storeDir);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public BillingResponse createBillingAccount() {
+        return stub.createBillingAccount(BillingRequest.newBuilder()
+                .setPatientId(UUID.randomUUID().toString())
+                .setName("John Doe")
+                .setEmail("john.doe@example.com")
+                .build());
+    }
+}
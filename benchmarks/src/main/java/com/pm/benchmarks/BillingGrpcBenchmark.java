@@ -0,0 +1,85 @@
+package com.pm.benchmarks;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import com.pm.billingservice.grpc.BillingGrpcService;
+import com.pm.billingservice.repository.BillingAccountStore;
+import com.pm.billingservice.service.BillingAccountService;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillingGrpcBenchmark {
+    // inprocess measures the service and stub cost, netty adds HTTP/2 framing over loopback
+    @Param({"inprocess", "netty"})
+    public String transport;
+
+    private Path storeDir;
+    private BillingAccountStore store;
+    private Server server;
+    private ManagedChannel channel;
+    private BillingServiceGrpc.BillingServiceBlockingStub stub;
+    private BillingRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        // fsync off, this measures the call path and the log append rather than the disk
+        storeDir = Files.createTempDirectory("billing-bench");
+        store = new BillingAccountStore(storeDir.resolve("accounts.log"), false);
+        BillingGrpcService service = new BillingGrpcService(new BillingAccountService(store));
+        if ("inprocess".equals(transport)) {
+            String name = InProcessServerBuilder.generateName();
+            server = InProcessServerBuilder.forName(name).directExecutor()
+                    .addService(service).build().start();
+            channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        } else {
+            server = ServerBuilder.forPort(0).addService(service).build().start();
+            channel = ManagedChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        }
+        stub = BillingServiceGrpc.newBlockingStub(channel);
+        request = BillingRequest.newBuilder()
+                .setPatientId("123e4567-e89b-12d3-a456-426614174000")
+                .setName("John Doe")
+                .setEmail("john.doe@example.com")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException, IOException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        store.close();
+        Files.deleteIfExists(storeDir.resolve("accounts.log"));
+        Files.deleteIfExists(storeDir);
+    }
+
+    // same patient every call, so this is the idempotent lookup path after the first append
+    @Benchmark
+    @Threads(4)
+    public BillingResponse createBillingAccount() {
+        return stub.createBillingAccount(request);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BillingResponse createBillingAccountNewPatient() {
+        return stub.createBillingAccount(request.toBuilder().setPatientId(UUID.randomUUID().toString()).build());
+    }
+}
@@ -0,0 +1,36 @@
+package com.pm.benchmarks;
+
+import com.pm.authservice.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // any 256 bit key works, JwtUtil expects it base64 encoded like the JWT_SECRET env var
+        String secret = Base64.getEncoder().encodeToString("benchmark-secret-key-of-32-bytes".getBytes());
+        jwtUtil = new JwtUtil(secret);
+        token = jwtUtil.generateToken("testuser@test.com", "ADMIN");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("testuser@test.com", "ADMIN");
+    }
+
+    @Benchmark
+    public void validateToken() {
+        jwtUtil.validateToken(token);
+    }
+}
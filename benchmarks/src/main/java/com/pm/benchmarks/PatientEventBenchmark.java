@@ -0,0 +1,40 @@
+package com.pm.benchmarks;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.*;
+import patient.events.PatientEvent;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientEventBenchmark {
+    private PatientEvent event;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        event = PatientEvent.newBuilder()
+                .setPatientId(UUID.randomUUID().toString())
+                .setName("John Doe")
+                .setEmail("john.doe@example.com")
+                .setEventType("PATIENT_CREATED")
+                .build();
+        serialized = event.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return event.toByteArray();
+    }
+
+    @Benchmark
+    public PatientEvent parse() throws InvalidProtocolBufferException {
+        return PatientEvent.parseFrom(serialized);
+    }
+}
@@ -0,0 +1,115 @@
+package com.pm.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientJdbcRepository;
+import com.pm.patientservice.service.PatientService;
+import com.pm.patientservice.util.CursorCodec;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// GET /patients: the old entity path (managed Patients, PatientMapper.toDTO, then Jackson) against the
+// JDBC projection written straight to the response, over an in-memory H2 database.
+// Run with -prof gc to see the per page allocation: java -jar target/benchmarks.jar PatientListing -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientListingBenchmark {
+    private static final int ROWS = 5_000;
+
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SessionFactory sessionFactory;
+    private PatientService patientService;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() {
+        String url = "jdbc:h2:mem:listing;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+        // Hibernate creates the table from the entity, the same mapping getPatients used to read through
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Patient.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "500")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .buildSessionFactory();
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                Patient patient = new Patient();
+                patient.setName("Patient Number " + i);
+                patient.setEmail("patient" + i + "@example.com");
+                patient.setAddress(i + " Main Street, Springfield");
+                patient.setDateOfBirth(LocalDate.of(1950, 1, 1).plusDays(i * 7L));
+                patient.setRegisterDate(LocalDate.of(2024, 1, 1));
+                patient.setBillingStatus(BillingStatus.ACTIVE);
+                session.persist(patient);
+            }
+        });
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        // the listing only needs the JDBC repository and the ObjectMapper
+        patientService = new PatientService(null, new PatientJdbcRepository(new JdbcTemplate(dataSource)),
+                null, null, objectMapper, null, null);
+        out = new ByteArrayOutputStream(pageSize * 200);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public int entities() throws IOException {
+        out.reset();
+        // what getPatients did before: a fresh persistence context per request, entities, then DTOs
+        PatientPageResponseDTO page;
+        try (Session session = sessionFactory.openSession()) {
+            List<Patient> patients = session.createQuery("FROM Patient ORDER BY id", Patient.class)
+                    .setMaxResults(pageSize + 1)
+                    .getResultList();
+            boolean hasMore = patients.size() > pageSize;
+            List<Patient> rows = hasMore ? patients.subList(0, pageSize) : patients;
+            String nextCursor = hasMore ? CursorCodec.encode(rows.get(rows.size() - 1).getId()) : null;
+            page = new PatientPageResponseDTO(rows.stream().map(PatientMapper::toDTO).toList(), nextCursor);
+        }
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int projectionDtos() throws IOException {
+        out.reset();
+        // the protobuf path: JDBC rows to DTOs, no persistence context, serialized as a page afterwards
+        objectMapper.writeValue(out, patientService.getPatients(null, pageSize));
+        return out.size();
+    }
+
+    @Benchmark
+    public int projectionStreamed() throws IOException {
+        out.reset();
+        patientService.writePatients(null, pageSize, out);
+        return out.size();
+    }
+}
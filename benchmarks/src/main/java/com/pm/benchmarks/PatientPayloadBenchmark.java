@@ -0,0 +1,106 @@
+package com.pm.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.mapper.PatientProtoMapper;
+import org.openjdk.jmh.annotations.*;
+import patient.api.PatientPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// JSON vs protobuf for a page of patients, and what gzip / zstd cost on top. Payload sizes are printed in setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientPayloadBenchmark {
+    @Param({"50", "500"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PatientPageResponseDTO page;
+    private byte[] json;
+    private byte[] protobuf;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<PatientResponseDTO> patients = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            PatientResponseDTO patient = new PatientResponseDTO();
+            patient.setId(UUID.randomUUID().toString());
+            patient.setName("Patient Number " + i);
+            patient.setEmail("patient" + i + "@example.com");
+            patient.setAddress(i + " Main Street, Springfield");
+            patient.setDateOfBirth(LocalDate.of(1950, 1, 1).plusDays(i * 37L).toString());
+            patients.add(patient);
+        }
+        page = new PatientPageResponseDTO(patients, "cursor");
+        json = objectMapper.writeValueAsBytes(page);
+        protobuf = PatientProtoMapper.toProto(page).toByteArray();
+
+        System.out.printf("%n%d patients: json %d B (gzip %d B, zstd %d B), protobuf %d B (gzip %d B, zstd %d B)%n",
+                pageSize, json.length, gzip(json).length, Zstd.compress(json).length,
+                protobuf.length, gzip(protobuf).length, Zstd.compress(protobuf).length);
+    }
+
+    @Benchmark
+    public byte[] json() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] protobuf() {
+        return PatientProtoMapper.toProto(page).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        return gzip(json);
+    }
+
+    @Benchmark
+    public byte[] jsonZstd() {
+        return Zstd.compress(json);
+    }
+
+    @Benchmark
+    public byte[] protobufGzip() throws IOException {
+        return gzip(protobuf);
+    }
+
+    @Benchmark
+    public byte[] protobufZstd() {
+        return Zstd.compress(protobuf);
+    }
+
+    @Benchmark
+    public PatientPage parseProtobuf() throws IOException {
+        return PatientPage.parseFrom(protobuf);
+    }
+
+    @Benchmark
+    public JsonNode parseJson() throws IOException {
+        // PatientPageResponseDTO has no default constructor, a tree is the closest match to parsing a message
+        return objectMapper.readTree(json);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
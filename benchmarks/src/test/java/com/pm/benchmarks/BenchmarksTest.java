@@ -0,0 +1,98 @@
+package com.pm.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import patient.api.PatientPage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Calls each benchmark once outside JMH, checking that the variants of a benchmark do the same work
+class BenchmarksTest {
+
+    @Test
+    void listingVariantsWriteTheSamePage() throws Exception {
+        PatientListingBenchmark benchmark = new PatientListingBenchmark();
+        benchmark.pageSize = 50;
+        benchmark.setUp();
+        try {
+            int entities = benchmark.entities();
+            assertTrue(entities > 0);
+            assertEquals(entities, benchmark.projectionDtos());
+            assertEquals(entities, benchmark.projectionStreamed());
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void billingCallsReachTheServiceOnBothTransports() throws Exception {
+        for (String transport : new String[]{"inprocess", "netty"}) {
+            BillingGrpcBenchmark benchmark = new BillingGrpcBenchmark();
+            benchmark.transport = transport;
+            benchmark.setUp();
+            try {
+                // the same patient keeps its account, a new one gets its own
+                String accountId = benchmark.createBillingAccount().getAccountId();
+                assertEquals(accountId, benchmark.createBillingAccount().getAccountId());
+                assertNotEquals(accountId, benchmark.createBillingAccountNewPatient().getAccountId());
+            } finally {
+                benchmark.tearDown();
+            }
+        }
+    }
+
+    @Test
+    void channelPoolCallsGoThrough() throws Exception {
+        BillingChannelPoolBenchmark benchmark = new BillingChannelPoolBenchmark();
+        benchmark.poolSize = 4;
+        benchmark.setUp();
+        try {
+            assertEquals("ACTIVE", benchmark.createBillingAccount().getStatus());
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    void payloadsParseBackToTheSamePage() throws Exception {
+        PatientPayloadBenchmark benchmark = new PatientPayloadBenchmark();
+        benchmark.pageSize = 50;
+        benchmark.setUp();
+
+        assertEquals(50, PatientPage.parseFrom(benchmark.protobuf()).getPatientsCount());
+        assertEquals(50, benchmark.parseProtobuf().getPatientsCount());
+        assertEquals(50, benchmark.parseJson().get("patients").size());
+        assertTrue(benchmark.jsonGzip().length < benchmark.json().length);
+        assertTrue(benchmark.jsonZstd().length < benchmark.json().length);
+        assertTrue(benchmark.protobufGzip().length > 0);
+        assertTrue(benchmark.protobufZstd().length > 0);
+    }
+
+    @Test
+    void tokensAndPasswordsVerify() {
+        JwtBenchmark jwt = new JwtBenchmark();
+        jwt.setUp();
+        // a JWT is three base64url parts
+        assertEquals(3, jwt.generateToken().split("\\.").length);
+        jwt.validateToken();
+
+        PasswordEncoderBenchmark passwords = new PasswordEncoderBenchmark();
+        passwords.strength = 4;
+        passwords.setUp();
+        assertTrue(passwords.matches());
+    }
+
+    @Test
+    void eventsAndMappersRoundTrip() throws Exception {
+        PatientEventBenchmark events = new PatientEventBenchmark();
+        events.setUp();
+        assertEquals("PATIENT_CREATED", events.parse().getEventType());
+        assertTrue(events.serialize().length > 0);
+
+        PatientMapperBenchmark mapper = new PatientMapperBenchmark();
+        mapper.setUp();
+        assertEquals("john.doe@example.com", mapper.toDTO().getEmail());
+        assertEquals("john.doe@example.com", mapper.toModel().getEmail());
+    }
+}
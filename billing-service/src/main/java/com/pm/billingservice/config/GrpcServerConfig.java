@@ -0,0 +1,25 @@
+package com.pm.billingservice.config;
+
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GrpcServerConfig {
+
+    // Stream limit and flow control window aren't covered by grpc.server.* properties
+    @Bean
+    public GrpcServerConfigurer nettyServerConfigurer(
+            // patient-service sizes its channel pool from this, keep billing.service.channel.max-concurrent-streams equal
+            @Value("${billing.grpc.max-concurrent-streams:100}") int maxConcurrentStreams,
+            @Value("${billing.grpc.flow-control-window:1048576}") int flowControlWindow) {
+        return serverBuilder -> {
+            if (serverBuilder instanceof NettyServerBuilder nettyServerBuilder) {
+                nettyServerBuilder.maxConcurrentCallsPerConnection(maxConcurrentStreams)
+                        .flowControlWindow(flowControlWindow);
+            }
+        };
+    }
+}
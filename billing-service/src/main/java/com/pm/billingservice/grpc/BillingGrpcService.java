@@ -1,26 +1,47 @@
 package com.pm.billingservice.grpc;
 
+import billing.BillingAccountLookup;
+import billing.BillingAccountResult;
+import billing.BillingRequest;
 import billing.BillingResponse;
+import com.pm.billingservice.model.BillingAccount;
+import com.pm.billingservice.service.BillingAccountService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
 @GrpcService
 public class BillingGrpcService extends BillingServiceImplBase{
     private static final Logger log = LoggerFactory.getLogger(BillingGrpcService.class);
+    private final BillingAccountService billingAccountService;
+
+    public BillingGrpcService(BillingAccountService billingAccountService) {
+        this.billingAccountService = billingAccountService;
+    }
 
     @Override
     public void createBillingAccount(billing.BillingRequest billingRequest, StreamObserver<billing.BillingResponse> responseObserver) {
         log.info("createBillingAccount request received {}", billingRequest.toString());
 
-        // Business Logic - e.g save to db, perform calculates ect
-
-        BillingResponse response = BillingResponse.newBuilder()
-                .setAccountId("12345")
-                .setStatus("ACTIVE")
-                .build();
+        BillingResponse response;
+        try {
+            response = createAccount(billingRequest);
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        } catch (UncheckedIOException e) {
+            // the client retries UNAVAILABLE, safe because creating is idempotent on patientId
+            log.error("Could not store billing account for patient {}", billingRequest.getPatientId(), e);
+            responseObserver.onError(Status.UNAVAILABLE.withDescription("Billing account store unavailable").asRuntimeException());
+            return;
+        }
         // Sends the response back to the client
         responseObserver.onNext(response);
 
@@ -28,4 +49,97 @@ public class BillingGrpcService extends BillingServiceImplBase{
         // multiple response
         responseObserver.onCompleted();
     }
+
+    @Override
+    public StreamObserver<BillingRequest> createBillingAccounts(StreamObserver<BillingAccountResult> responseObserver) {
+        // Manual flow control: we only ask the client for the next request once we can write the result,
+        // so a slow client reading results can't make us buffer the whole import in memory
+        ServerCallStreamObserver<BillingAccountResult> serverObserver =
+                (ServerCallStreamObserver<BillingAccountResult>) responseObserver;
+        serverObserver.disableAutoRequest();
+        OnReadyHandler onReadyHandler = new OnReadyHandler(serverObserver);
+        serverObserver.setOnReadyHandler(onReadyHandler);
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(BillingRequest billingRequest) {
+                BillingAccountResult.Builder result = BillingAccountResult.newBuilder()
+                        .setPatientId(billingRequest.getPatientId());
+                try {
+                    BillingResponse response = createAccount(billingRequest);
+                    result.setAccountId(response.getAccountId()).setStatus(response.getStatus());
+                } catch (RuntimeException e) {
+                    log.warn("Billing account for patient {} failed: {}", billingRequest.getPatientId(), e.getMessage());
+                    result.setStatus("FAILED").setError(String.valueOf(e.getMessage()));
+                }
+                serverObserver.onNext(result.build());
+
+                if (serverObserver.isReady()) {
+                    serverObserver.request(1);
+                } else {
+                    // the onReady handler requests the next one once the client caught up
+                    onReadyHandler.wasReady = false;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("createBillingAccounts stream cancelled: {}", t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                serverObserver.onCompleted();
+            }
+        };
+    }
+
+    @Override
+    public void getBillingAccount(BillingAccountLookup lookup, StreamObserver<BillingResponse> responseObserver) {
+        if (lookup.getKeyCase() == BillingAccountLookup.KeyCase.KEY_NOT_SET) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("patientId or accountId is required").asRuntimeException());
+            return;
+        }
+        Optional<BillingAccount> account = lookup.hasPatientId()
+                ? billingAccountService.findByPatientId(lookup.getPatientId())
+                : billingAccountService.findByAccountId(lookup.getAccountId());
+        if (account.isEmpty()) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("Billing account not found").asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(toResponse(account.get()));
+        responseObserver.onCompleted();
+    }
+
+    private BillingResponse createAccount(BillingRequest billingRequest) {
+        BillingAccount account = billingAccountService.createAccount(billingRequest.getPatientId(),
+                billingRequest.getName(), billingRequest.getEmail());
+        return toResponse(account);
+    }
+
+    private static BillingResponse toResponse(BillingAccount account) {
+        return BillingResponse.newBuilder()
+                .setAccountId(account.accountId())
+                .setStatus(account.status())
+                .build();
+    }
+
+    private static class OnReadyHandler implements Runnable {
+        private final ServerCallStreamObserver<BillingAccountResult> serverObserver;
+        // guards against requesting twice when onReady fires again without a message in between
+        private boolean wasReady = false;
+
+        OnReadyHandler(ServerCallStreamObserver<BillingAccountResult> serverObserver) {
+            this.serverObserver = serverObserver;
+        }
+
+        @Override
+        public void run() {
+            if (serverObserver.isReady() && !wasReady) {
+                wasReady = true;
+                serverObserver.request(1);
+            }
+        }
+    }
 }
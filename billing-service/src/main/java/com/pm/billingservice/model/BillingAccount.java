@@ -0,0 +1,7 @@
+package com.pm.billingservice.model;
+
+import java.time.Instant;
+
+public record BillingAccount(String accountId, String patientId, String name, String email,
+                             String status, Instant createdAt) {
+}
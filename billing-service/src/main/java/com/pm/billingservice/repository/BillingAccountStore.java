@@ -0,0 +1,235 @@
+package com.pm.billingservice.repository;
+
+import billing.store.BillingAccountRecord;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.billingservice.model.BillingAccount;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+@Repository
+// Accounts are only ever appended to one log file, both indexes live in memory and are rebuilt by
+// replaying the log on startup. Every entry is [length][crc32c][BillingAccountRecord]
+public class BillingAccountStore {
+    private static final Logger log = LoggerFactory.getLogger(BillingAccountStore.class);
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final ConcurrentHashMap<String, Entry> byPatientId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> byAccountId = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    // end of the last complete append, only moved under writeLock
+    private volatile long writePosition;
+    // everything before this is on disk
+    private volatile long syncedPosition;
+    // fsyncs done for appends, only moved under syncLock
+    private volatile long syncs;
+
+    public BillingAccountStore(@Value("${billing.store.path:data/billing/accounts.log}") Path file,
+                               // off trades durability of the last few accounts for throughput, e.g. in benchmarks
+                               @Value("${billing.store.fsync:true}") boolean fsync) throws IOException {
+        this.file = file;
+        this.fsync = fsync;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.writePosition = replay();
+        this.syncedPosition = writePosition;
+        log.info("Billing account store {} opened with {} accounts", file, byPatientId.size());
+    }
+
+    public Optional<BillingAccount> findByPatientId(String patientId) {
+        return Optional.ofNullable(byPatientId.get(patientId)).map(Entry::account);
+    }
+
+    public Optional<BillingAccount> findByAccountId(String accountId) {
+        return Optional.ofNullable(byAccountId.get(accountId)).map(Entry::account);
+    }
+
+    // Idempotent on patientId: a retry gets the account the first call created. Only returns once the
+    // account is durable, also when another caller created it and its fsync is still pending
+    public BillingAccount createIfAbsent(String patientId, Supplier<BillingAccount> newAccount) {
+        Entry entry = byPatientId.get(patientId);
+        if (entry == null) {
+            writeLock.lock();
+            try {
+                entry = byPatientId.get(patientId);
+                if (entry == null) {
+                    entry = append(newAccount.get());
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        awaitDurable(entry.endPosition());
+        return entry.account();
+    }
+
+    public int size() {
+        return byPatientId.size();
+    }
+
+    // how many appends had to wait for their own fsync, lower than the number of appends under group commit
+    long syncCount() {
+        return syncs;
+    }
+
+    private Entry append(BillingAccount account) {
+        byte[] payload = toRecord(account).toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        long position = writePosition;
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            // cut off the partial entry, so leftovers of it past a shorter next entry can't look like a damaged log
+            try {
+                channel.truncate(writePosition);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Could not append billing account to " + file, e);
+        }
+        Entry entry = new Entry(account, position);
+        byAccountId.put(account.accountId(), entry);
+        byPatientId.put(account.patientId(), entry);
+        writePosition = position;
+        return entry;
+    }
+
+    // Group commit: whoever gets syncLock forces everything appended so far, callers that queued
+    // behind it usually find their entry already synced and skip their own fsync
+    private void awaitDurable(long position) {
+        if (!fsync || syncedPosition >= position) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (syncedPosition >= position) {
+                return;
+            }
+            long target = writePosition;
+            channel.force(false);
+            syncedPosition = target;
+            syncs++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync billing account log " + file, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // Rebuilds the indexes. Only a torn last entry, whose header or payload runs past the end of the file after a
+    // crash mid append, is cut off. Any other bad entry means the log is damaged: cutting there would drop every
+    // account after it, so startup fails and the file is left as it is for someone to look at
+    private long replay() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                throw corrupt(position, "entry length " + length);
+            }
+            if (position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            while (payload.hasRemaining()) {
+                channel.read(payload, position + HEADER_BYTES + payload.position());
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                throw corrupt(position, "checksum mismatch");
+            }
+            BillingAccount account;
+            try {
+                account = fromRecord(BillingAccountRecord.parseFrom(payload.array()));
+            } catch (InvalidProtocolBufferException e) {
+                throw corrupt(position, e.getMessage());
+            }
+            position += HEADER_BYTES + length;
+            Entry entry = new Entry(account, position);
+            byAccountId.put(account.accountId(), entry);
+            byPatientId.put(account.patientId(), entry);
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of a torn billing account entry in {}", size - position, file);
+            channel.truncate(position);
+            channel.force(false);
+        }
+        return position;
+    }
+
+    private IOException corrupt(long position, String reason) throws IOException {
+        channel.close();
+        return new IOException("Billing account log " + file + " is corrupt at offset " + position + " (" + reason
+                + "), restore it from a backup or move it aside to start empty");
+    }
+
+    private static BillingAccountRecord toRecord(BillingAccount account) {
+        return BillingAccountRecord.newBuilder()
+                .setAccountId(account.accountId())
+                .setPatientId(account.patientId())
+                .setName(account.name())
+                .setEmail(account.email())
+                .setStatus(account.status())
+                .setCreatedAtMillis(account.createdAt().toEpochMilli())
+                .build();
+    }
+
+    private static BillingAccount fromRecord(BillingAccountRecord record) {
+        return new BillingAccount(record.getAccountId(), record.getPatientId(), record.getName(),
+                record.getEmail(), record.getStatus(), Instant.ofEpochMilli(record.getCreatedAtMillis()));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private record Entry(BillingAccount account, long endPosition) {
+    }
+}
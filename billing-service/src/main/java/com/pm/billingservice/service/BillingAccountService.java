@@ -0,0 +1,37 @@
+package com.pm.billingservice.service;
+
+import com.pm.billingservice.model.BillingAccount;
+import com.pm.billingservice.repository.BillingAccountStore;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class BillingAccountService {
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private final BillingAccountStore billingAccountStore;
+
+    public BillingAccountService(BillingAccountStore billingAccountStore) {
+        this.billingAccountStore = billingAccountStore;
+    }
+
+    // patient-service retries on timeouts, so the same patient can arrive more than once
+    public BillingAccount createAccount(String patientId, String name, String email) {
+        if (patientId == null || patientId.isBlank()) {
+            throw new IllegalArgumentException("patientId is required");
+        }
+        return billingAccountStore.createIfAbsent(patientId, () -> new BillingAccount(
+                UUID.randomUUID().toString(), patientId, name, email, STATUS_ACTIVE, Instant.now()));
+    }
+
+    public Optional<BillingAccount> findByPatientId(String patientId) {
+        return billingAccountStore.findByPatientId(patientId);
+    }
+
+    public Optional<BillingAccount> findByAccountId(String accountId) {
+        return billingAccountStore.findByAccountId(accountId);
+    }
+}
@@ -0,0 +1,137 @@
+package com.pm.billingservice.grpc;
+
+import billing.BillingAccountResult;
+import billing.BillingRequest;
+import billing.BillingServiceGrpc;
+import com.pm.billingservice.model.BillingAccount;
+import com.pm.billingservice.service.BillingAccountService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// CreateBillingAccounts over an in-process transport, where the server can only write while the client
+// has results outstanding, so a client that stops reading makes the server stop reading too
+class BillingGrpcServiceTest {
+    private final BillingAccountService billingAccountService = mock(BillingAccountService.class);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        when(billingAccountService.createAccount(any(), any(), any())).thenAnswer(invocation -> {
+            String patientId = invocation.getArgument(0);
+            if (patientId.isBlank()) {
+                throw new IllegalArgumentException("patientId is required");
+            }
+            return new BillingAccount("account-" + patientId, patientId, invocation.getArgument(1),
+                    invocation.getArgument(2), "ACTIVE", Instant.now());
+        });
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new BillingGrpcService(billingAccountService))
+                .build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void answersEveryRequestInOrder() throws Exception {
+        List<BillingRequest> requests = IntStream.range(0, 50)
+                .mapToObj(i -> request(i == 10 ? "" : "p" + i))
+                .toList();
+
+        List<BillingAccountResult> results = send(requests, Integer.MAX_VALUE).get(5, TimeUnit.SECONDS);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(requests.get(i).getPatientId(), results.get(i).getPatientId());
+        }
+        assertEquals("FAILED", results.get(10).getStatus());
+        assertEquals("patientId is required", results.get(10).getError());
+        assertEquals("account-p11", results.get(11).getAccountId());
+    }
+
+    @Test
+    void stopsReadingWhileTheClientDoesNotReadResults() throws Exception {
+        List<BillingRequest> requests = IntStream.range(0, 50).mapToObj(i -> request("p" + i)).toList();
+        List<ClientCallStreamObserver<BillingRequest>> streams = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<List<BillingAccountResult>> results = send(requests, 1, streams);
+
+        verify(billingAccountService, after(200).atMost(2)).createAccount(any(), any(), any());
+
+        streams.get(0).request(Integer.MAX_VALUE);
+        assertEquals(50, results.get(5, TimeUnit.SECONDS).size());
+        verify(billingAccountService, times(50)).createAccount(any(), any(), any());
+    }
+
+    private CompletableFuture<List<BillingAccountResult>> send(List<BillingRequest> requests, int initialResults) {
+        return send(requests, initialResults, new CopyOnWriteArrayList<>());
+    }
+
+    // Writes every request up front and reads no more than initialResults results until asked for more
+    private CompletableFuture<List<BillingAccountResult>> send(List<BillingRequest> requests, int initialResults,
+                                                               List<ClientCallStreamObserver<BillingRequest>> streams) {
+        CompletableFuture<List<BillingAccountResult>> done = new CompletableFuture<>();
+        List<BillingAccountResult> results = new CopyOnWriteArrayList<>();
+        ClientCallStreamObserver<BillingRequest> requestStream = (ClientCallStreamObserver<BillingRequest>)
+                BillingServiceGrpc.newStub(channel).createBillingAccounts(
+                        new ClientResponseObserver<BillingRequest, BillingAccountResult>() {
+                            @Override
+                            public void beforeStart(ClientCallStreamObserver<BillingRequest> stream) {
+                                stream.disableAutoRequestWithInitial(initialResults);
+                            }
+
+                            @Override
+                            public void onNext(BillingAccountResult result) {
+                                results.add(result);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                done.completeExceptionally(t);
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                done.complete(results);
+                            }
+                        });
+        streams.add(requestStream);
+        requests.forEach(requestStream::onNext);
+        requestStream.onCompleted();
+        return done;
+    }
+
+    private static BillingRequest request(String patientId) {
+        return BillingRequest.newBuilder().setPatientId(patientId).setName("Jane").setEmail("jane@example.com").build();
+    }
+}
@@ -0,0 +1,206 @@
+package com.pm.billingservice.repository;
+
+import com.pm.billingservice.model.BillingAccount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillingAccountStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAccountsAfterRestart() throws IOException {
+        Path file = dir.resolve("accounts.log");
+        List<BillingAccount> created = new ArrayList<>();
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        for (int i = 0; i < 3; i++) {
+            String patientId = "patient-" + i;
+            created.add(store.createIfAbsent(patientId, () -> account(patientId)));
+        }
+        store.close();
+
+        BillingAccountStore reopened = new BillingAccountStore(file, true);
+        assertEquals(3, reopened.size());
+        for (BillingAccount account : created) {
+            assertEquals(account, reopened.findByPatientId(account.patientId()).orElseThrow());
+            assertEquals(account, reopened.findByAccountId(account.accountId()).orElseThrow());
+        }
+        reopened.close();
+    }
+
+    @Test
+    void truncatesATornLastEntry() throws IOException {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        store.createIfAbsent("patient-1", () -> account("patient-1"));
+        store.createIfAbsent("patient-2", () -> account("patient-2"));
+        store.close();
+        long complete = Files.size(file);
+
+        // a crash mid append: the header promises 100 bytes but only 10 made it to disk
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(18).putInt(100).putInt(0).flip());
+        }
+
+        BillingAccountStore reopened = new BillingAccountStore(file, true);
+        assertEquals(2, reopened.size());
+        assertEquals(complete, Files.size(file));
+        // appends continue from the cut
+        reopened.createIfAbsent("patient-3", () -> account("patient-3"));
+        reopened.close();
+        assertEquals(3, new BillingAccountStore(file, true).size());
+    }
+
+    // complete on disk but damaged, cutting it off would not be recovering from a crash
+    @Test
+    void refusesToStartWhenTheLastEntryFailsItsChecksum() throws IOException {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        store.createIfAbsent("patient-1", () -> account("patient-1"));
+        store.createIfAbsent("patient-2", () -> account("patient-2"));
+        store.close();
+        long size = Files.size(file);
+
+        flipByte(file, size - 1);
+
+        assertThrows(IOException.class, () -> new BillingAccountStore(file, true));
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void refusesToStartOnADamagedEntryInTheMiddle() throws IOException {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        store.createIfAbsent("patient-1", () -> account("patient-1"));
+        long first = Files.size(file);
+        store.createIfAbsent("patient-2", () -> account("patient-2"));
+        store.createIfAbsent("patient-3", () -> account("patient-3"));
+        store.close();
+        long size = Files.size(file);
+
+        // last byte of the second entry's payload, patient-3 after it is still intact
+        long secondEnd = first + (size - first) / 2;
+        flipByte(file, secondEnd - 1);
+
+        IOException error = assertThrows(IOException.class, () -> new BillingAccountStore(file, true));
+        assertTrue(error.getMessage().contains("offset " + first), error.getMessage());
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void refusesToStartOnAnImpossibleEntryLength() throws IOException {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        store.createIfAbsent("patient-1", () -> account("patient-1"));
+        store.close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(8).putInt(-1).putInt(0).flip());
+        }
+
+        assertThrows(IOException.class, () -> new BillingAccountStore(file, true));
+    }
+
+    @Test
+    void concurrentCreatesForOnePatientMakeOneAccount() throws Exception {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<BillingAccount>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return store.createIfAbsent("patient-1", () -> {
+                    created.incrementAndGet();
+                    return account("patient-1");
+                });
+            }));
+        }
+        start.countDown();
+
+        Set<String> accountIds = new HashSet<>();
+        for (Future<BillingAccount> result : results) {
+            accountIds.add(result.get(10, TimeUnit.SECONDS).accountId());
+        }
+        executor.shutdown();
+        assertEquals(1, created.get());
+        assertEquals(1, accountIds.size());
+        store.close();
+        assertEquals(1, new BillingAccountStore(file, true).size());
+    }
+
+    @Test
+    void concurrentAppendsShareFsyncs() throws Exception {
+        Path file = dir.resolve("accounts.log");
+        BillingAccountStore store = new BillingAccountStore(file, true);
+        int creates = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<BillingAccount>> results = new ArrayList<>();
+        for (int i = 0; i < creates; i++) {
+            String patientId = "patient-" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return store.createIfAbsent(patientId, () -> account(patientId));
+            }));
+        }
+        start.countDown();
+        for (Future<BillingAccount> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long syncs = store.syncCount();
+        assertTrue(syncs >= 1 && syncs <= creates, "fsyncs: " + syncs);
+        // already durable, a retry returns without another fsync
+        store.createIfAbsent("patient-0", () -> account("patient-0"));
+        assertEquals(syncs, store.syncCount());
+        store.close();
+        assertEquals(creates, new BillingAccountStore(file, true).size());
+    }
+
+    @Test
+    void skipsFsyncWhenDisabled() throws IOException {
+        BillingAccountStore store = new BillingAccountStore(dir.resolve("accounts.log"), false);
+        store.createIfAbsent("patient-1", () -> account("patient-1"));
+        assertEquals(0, store.syncCount());
+        store.close();
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer current = ByteBuffer.allocate(1);
+            channel.read(current, position);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~current.get(0)}), position);
+        }
+    }
+
+    private static BillingAccount account(String patientId) {
+        return new BillingAccount(UUID.randomUUID().toString(), patientId, "Jane Doe", "jane@example.com",
+                "ACTIVE", Instant.ofEpochMilli(1_700_000_000_000L));
+    }
+}
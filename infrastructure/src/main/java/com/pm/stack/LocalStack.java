@@ -46,6 +46,7 @@ public class LocalStack extends Stack {
         authService.getNode().addDependency(authDbHealthCheck);
         authService.getNode().addDependency(authServiceDb);
 
+        // one task only, accounts are kept in the task's own append-only log and are not shared between replicas
         FargateService billingService =
                 createFargateService("BillingService",
                         "billing-service",
@@ -65,7 +66,7 @@ public class LocalStack extends Stack {
                 "patient-service",
                 List.of(4000),
                 patientServiceDb,
-                Map.of("BILLING_SERVER_ADDRESS", "host.docker.internal",
+                Map.of("BILLING_SERVICE_ADDRESS", "host.docker.internal",
                         "BILLING_SERVICE_GRPC_PORT", "9001"
                         ));
 
@@ -215,7 +216,9 @@ public class LocalStack extends Stack {
                         .image(ContainerImage.fromRegistry("api-gateway"))
                         .environment(Map.of(
                                 "SPRING_PROFILES_ACTIVE", "prod",
-                                "AUTH_SERVICE_URL", "http://host.docker.internal:4005"))
+                                "AUTH_SERVICE_URL", "http://host.docker.internal:4005",
+                                // the gateway verifies tokens itself with the same key as auth-service
+                                "JWT_SECRET", System.getenv("JWT_SECRET")))
                         .portMappings(List.of(4004).stream()
                                 .map(port -> PortMapping.builder()
                                         .containerPort(port)
@@ -0,0 +1,83 @@
+package load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Prints one line per step and operation, and keeps the full histograms as .hlog files
+// (open them with HistogramLogAnalyzer or plot them with hdr-plot)
+public class LoadReport {
+    private final Path outputDir;
+
+    public LoadReport(Path outputDir) throws IOException {
+        this.outputDir = Files.createDirectories(outputDir);
+    }
+
+    public void write(StepResult step) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(outputDir.resolve("step-" + step.offeredRate() + ".hlog").toFile())) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputLegend();
+            step.latency().setTag("all");
+            writer.outputIntervalHistogram(step.latency());
+            for (Map.Entry<Operation, Histogram> entry : step.latencyByOperation().entrySet()) {
+                if (entry.getValue().getTotalCount() > 0) {
+                    entry.getValue().setTag(entry.getKey().name().toLowerCase());
+                    writer.outputIntervalHistogram(entry.getValue());
+                }
+            }
+        }
+    }
+
+    public void print(List<StepResult> steps, LoadTestSettings settings, PrintStream out) {
+        out.printf("%nOpen model load test against %s, mix %s, p99 SLO %d ms, error budget %.1f%%%n",
+                settings.baseUri(), settings.mix(), settings.p99SloMillis(), settings.maxErrorRate() * 100);
+        out.printf("%-9s %-8s %10s %8s %8s %10s %10s %10s %10s%n",
+                "offered/s", "op", "achieved/s", "errors", "dropped", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (StepResult step : steps) {
+            printLine(out, step.offeredRate(), "all", step.latency(), step.achievedRate(), step.errors(), step.dropped());
+            for (Map.Entry<Operation, Histogram> entry : step.latencyByOperation().entrySet()) {
+                if (entry.getValue().getTotalCount() > 0) {
+                    printLine(out, step.offeredRate(), entry.getKey().name().toLowerCase(), entry.getValue(),
+                            entry.getValue().getTotalCount() / (step.duration().toNanos() / 1e9), -1, -1);
+                }
+            }
+        }
+
+        StepResult lastGood = null;
+        StepResult firstSaturated = null;
+        for (StepResult step : steps) {
+            if (step.saturated(settings)) {
+                firstSaturated = step;
+                break;
+            }
+            lastGood = step;
+        }
+        if (firstSaturated == null) {
+            out.printf("Not saturated up to %d/s, raise load.rates to find the limit%n",
+                    steps.get(steps.size() - 1).offeredRate());
+        } else {
+            out.printf("Saturation between %s and %d/s: achieved %.1f/s, errors %.2f%%, p99 %.1f ms%n",
+                    lastGood == null ? "0" : lastGood.offeredRate() + "/s", firstSaturated.offeredRate(),
+                    firstSaturated.achievedRate(), firstSaturated.errorRate() * 100, firstSaturated.p99Millis());
+        }
+        out.printf("Histograms written to %s%n", outputDir);
+    }
+
+    private static void printLine(PrintStream out, int offered, String operation, Histogram histogram,
+                                  double achieved, long errors, long dropped) {
+        out.printf("%-9d %-8s %10.1f %8s %8s %10.2f %10.2f %10.2f %10.2f%n", offered, operation, achieved,
+                errors < 0 ? "" : errors, dropped < 0 ? "" : dropped,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
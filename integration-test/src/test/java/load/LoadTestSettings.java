@@ -0,0 +1,46 @@
+package load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+// Everything is a -Dload.* system property so a run can be tuned from the mvn command line
+public record LoadTestSettings(String baseUri,
+                               int[] rates,
+                               Duration warmup,
+                               Duration stepDuration,
+                               OperationMix mix,
+                               long p99SloMillis,
+                               double maxErrorRate,
+                               int maxOutstanding,
+                               String email,
+                               String password,
+                               boolean localStack,
+                               Path projectDir,
+                               Path outputDir) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                property("load.baseUri", "http://localhost:4004"),
+                // arrivals per second, one step each, stops at the first step that saturates
+                Arrays.stream(property("load.rates", "20,50,100,200,400,800,1600").split(","))
+                        .map(String::trim).mapToInt(Integer::parseInt).toArray(),
+                Duration.ofSeconds(Long.parseLong(property("load.warmupSeconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(property("load.stepSeconds", "30"))),
+                OperationMix.parse(property("load.mix", "login:5,create:20,list:50,update:15,delete:10")),
+                Long.parseLong(property("load.p99SloMs", "500")),
+                Double.parseDouble(property("load.maxErrorRate", "0.01")),
+                // requests waiting on a response, arrivals beyond this are counted as dropped
+                Integer.parseInt(property("load.maxOutstanding", "5000")),
+                property("load.email", "testuser@test.com"),
+                property("load.password", "password123"),
+                Boolean.parseBoolean(property("load.localStack", "false")),
+                Path.of(property("load.projectDir", "..")).toAbsolutePath().normalize(),
+                Path.of(property("load.outputDir", "target/load")).toAbsolutePath().normalize());
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
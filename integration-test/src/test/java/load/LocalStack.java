@@ -0,0 +1,131 @@
+package load;
+
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// The whole stack on one box with no Docker, Postgres or network access: an embedded Kafka broker runs
+// inside this JVM, billing-service, auth-service, patient-service and the gateway are started from their jars
+// with the local profile (H2, localhost routes)
+public final class LocalStack implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final int KAFKA_PORT = 9092;
+    // only ever used by this throwaway stack
+    private static final String JWT_SECRET = Base64.getEncoder().encodeToString(
+            "local-stack-load-test-secret-not-for-production-use".getBytes(StandardCharsets.UTF_8));
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final List<Process> processes = new ArrayList<>();
+
+    private LocalStack(EmbeddedKafkaKraftBroker kafka) {
+        this.kafka = kafka;
+    }
+
+    public static LocalStack start(LoadTestSettings settings) throws IOException, InterruptedException {
+        Path logDir = Files.createDirectories(settings.outputDir().resolve("logs"));
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, 3, "patient");
+        kafka.kafkaPorts(KAFKA_PORT);
+        kafka.afterPropertiesSet();
+        LocalStack stack = new LocalStack(kafka);
+        try {
+            // grpc on its default 9001, where patient-service's local profile looks for it
+            stack.startService(settings.projectDir(), logDir, "billing-service", 4001,
+                    Map.of("BILLING_STORE_PATH", settings.outputDir().resolve("billing/accounts.log").toString()));
+            stack.startService(settings.projectDir(), logDir, "auth-service", 4006, Map.of());
+            stack.startService(settings.projectDir(), logDir, "patient-service", 4000, Map.of());
+            stack.startService(settings.projectDir(), logDir, "api-gateway", 4004, Map.of());
+            return stack;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            stack.close();
+            throw e;
+        }
+    }
+
+    private void startService(Path projectDir, Path logDir, String name, int port, Map<String, String> environment)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", findJar(projectDir.resolve(name).resolve("target"), name).toString(),
+                "--spring.profiles.active=local")
+                .redirectErrorStream(true)
+                .redirectOutput(logDir.resolve(name + ".log").toFile());
+        builder.environment().put("JWT_SECRET", JWT_SECRET);
+        builder.environment().put("SPRING_KAFKA_BOOTSTRAP_SERVERS", kafka.getBrokersAsString());
+        builder.environment().putAll(environment);
+        processes.add(builder.start());
+        awaitHealthy(name, URI.create("http://localhost:" + port + "/actuator/health"), logDir);
+    }
+
+    // The -exec jar is the runnable one where the plain jar is kept for other modules to depend on
+    private static Path findJar(Path targetDir, String name) throws IOException {
+        Path exec = targetDir.resolve(name + "-0.0.1-SNAPSHOT-exec.jar");
+        if (Files.exists(exec)) {
+            return exec;
+        }
+        Path plain = targetDir.resolve(name + "-0.0.1-SNAPSHOT.jar");
+        if (Files.exists(plain)) {
+            return plain;
+        }
+        try (Stream<Path> jars = Files.list(targetDir)) {
+            return jars.filter(path -> path.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar for " + name + " in " + targetDir
+                            + ", run mvn package in " + name + " first"));
+        }
+    }
+
+    private void awaitHealthy(String name, URI health, Path logDir) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            Process process = processes.get(processes.size() - 1);
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue() + ", see "
+                        + logDir.resolve(name + ".log"));
+            }
+            try {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(health).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " was not healthy after " + STARTUP_TIMEOUT + ", see "
+                + logDir.resolve(name + ".log"));
+    }
+
+    @Override
+    public void close() {
+        // reverse start order so nothing loses a dependency while still taking traffic
+        for (int i = processes.size() - 1; i >= 0; i--) {
+            Process process = processes.get(i);
+            process.destroy();
+            try {
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+            }
+        }
+        kafka.destroy();
+    }
+}
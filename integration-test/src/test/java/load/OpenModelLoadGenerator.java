@@ -0,0 +1,80 @@
+package load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open model: requests arrive on a fixed schedule whether or not earlier ones have finished, like independent
+// users would. A closed loop of N threads slows down with the system and hides the queueing we want to see
+public class OpenModelLoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final PatientApi api;
+    private final OperationMix mix;
+    private final int maxOutstanding;
+
+    public OpenModelLoadGenerator(PatientApi api, OperationMix mix, int maxOutstanding) {
+        this.api = api;
+        this.mix = mix;
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    public StepResult run(int ratePerSecond, Duration duration) throws InterruptedException {
+        Histogram latency = newHistogram();
+        Map<Operation, Histogram> latencyByOperation = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencyByOperation.put(operation, newHistogram());
+        }
+        LongAdder errors = new LongAdder();
+        Semaphore outstanding = new Semaphore(maxOutstanding);
+        long sent = 0;
+        long dropped = 0;
+
+        double intervalNanos = 1e9 / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!outstanding.tryAcquire()) {
+                // the client itself would become the bottleneck, count it against the step instead
+                dropped++;
+                continue;
+            }
+            sent++;
+            Operation operation = mix.next();
+            api.execute(operation).whenComplete((status, error) -> {
+                long micros = Math.min(HIGHEST_TRACKABLE_MICROS, (System.nanoTime() - intended) / 1000);
+                latency.recordValue(micros);
+                latencyByOperation.get(operation).recordValue(micros);
+                if (error != null || status >= 400) {
+                    errors.increment();
+                }
+                outstanding.release();
+            });
+        }
+
+        if (!outstanding.tryAcquire(maxOutstanding, DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            errors.add(maxOutstanding - outstanding.availablePermits());
+        }
+        return new StepResult(ratePerSecond, duration, sent, errors.sum(), dropped, latency, latencyByOperation);
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    }
+}
@@ -0,0 +1,5 @@
+package load;
+
+public enum Operation {
+    LOGIN, CREATE, LIST, UPDATE, DELETE
+}
@@ -0,0 +1,125 @@
+package load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Non blocking client for the gateway routes. Every call completes with the HTTP status, so a slow
+// response never holds up the next arrival
+public class PatientApi {
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String loginPayload;
+    // patients created by this run, update and delete work on these so seeded data stays untouched
+    private final ConcurrentLinkedDeque<String> patientIds = new ConcurrentLinkedDeque<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private volatile String token;
+
+    public PatientApi(String baseUri, String email, String password) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUri = URI.create(baseUri);
+        this.loginPayload = """
+                {"email": "%s", "password": "%s"}""".formatted(email, password);
+    }
+
+    // The token every patient call uses, taken once before the run
+    public void authenticate() {
+        HttpResponse<String> response = login().join();
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed with " + response.statusCode() + ": " + response.body());
+        }
+        token = matcher.group(1);
+    }
+
+    public CompletableFuture<Integer> execute(Operation operation) {
+        return switch (operation) {
+            case LOGIN -> login().thenApply(HttpResponse::statusCode);
+            case CREATE -> create();
+            case LIST -> send(authorized("/api/patients").GET());
+            case UPDATE -> update();
+            case DELETE -> delete();
+        };
+    }
+
+    private CompletableFuture<HttpResponse<String>> login() {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/auth/login"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(loginPayload))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<Integer> create() {
+        HttpRequest request = authorized("/api/patients")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(patientPayload(true)))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            Matcher matcher = ID.matcher(response.body());
+            if (response.statusCode() < 300 && matcher.find()) {
+                patientIds.offerLast(matcher.group(1));
+            }
+            return response.statusCode();
+        });
+    }
+
+    // Falls back to a create until this run has patients of its own
+    private CompletableFuture<Integer> update() {
+        String id = patientIds.pollFirst();
+        if (id == null) {
+            return create();
+        }
+        HttpRequest.Builder request = authorized("/api/patients/" + id)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(patientPayload(false)));
+        return send(request).whenComplete((status, error) -> patientIds.offerLast(id));
+    }
+
+    private CompletableFuture<Integer> delete() {
+        String id = patientIds.pollFirst();
+        if (id == null) {
+            return create();
+        }
+        return send(authorized("/api/patients/" + id).DELETE());
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest.Builder request) {
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    // Unique email per request, the patient API rejects duplicates
+    private String patientPayload(boolean withRegisteredDate) {
+        long n = sequence.incrementAndGet();
+        String registeredDate = withRegisteredDate
+                ? ", \"registeredDate\": \"%s\"".formatted(LocalDate.now()) : "";
+        return """
+                {"name": "Load Test %d", "email": "load-%s-%d@test.com", "address": "%d Load St", "dateOfBirth": "1990-01-01"%s}"""
+                .formatted(n, runId, n, n, registeredDate);
+    }
+}
@@ -0,0 +1,44 @@
+package load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Capacity test, not a correctness one: steps the arrival rate up until the stack stops keeping up.
+// mvn test -Pload (running stack) or mvn test -Pload,local-stack, tuned with -Dload.* (see LoadTestSettings)
+@Tag("load")
+public class PatientLoadTest {
+
+    @Test
+    public void findSaturationPoint() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (LocalStack ignored = settings.localStack() ? LocalStack.start(settings) : null) {
+            PatientApi api = new PatientApi(settings.baseUri(), settings.email(), settings.password());
+            api.authenticate();
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(api, settings.mix(), settings.maxOutstanding());
+            LoadReport report = new LoadReport(settings.outputDir());
+
+            // JIT, connection pools and caches warm up at the lowest rate, not measured
+            generator.run(settings.rates()[0], settings.warmup());
+
+            List<StepResult> steps = new ArrayList<>();
+            for (int rate : settings.rates()) {
+                StepResult step = generator.run(rate, settings.stepDuration());
+                steps.add(step);
+                report.write(step);
+                if (step.saturated(settings)) {
+                    break;
+                }
+            }
+            report.print(steps, settings, System.out);
+
+            assertTrue(steps.get(0).sent() > steps.get(0).errors(),
+                    "Every request of the first step failed, is the stack running at " + settings.baseUri() + "?");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Outcome of running one arrival rate. Latencies are in microseconds, measured from when the request was
+// due rather than when it was sent, so time spent queued behind a slow system counts too
+public record StepResult(int offeredRate,
+                         Duration duration,
+                         long sent,
+                         long errors,
+                         long dropped,
+                         Histogram latency,
+                         Map<Operation, Histogram> latencyByOperation) {
+
+    public double achievedRate() {
+        return (sent - errors) / (duration.toNanos() / 1e9);
+    }
+
+    public double errorRate() {
+        long arrivals = sent + dropped;
+        return arrivals == 0 ? 0 : (double) (errors + dropped) / arrivals;
+    }
+
+    public double p99Millis() {
+        return latency.getValueAtPercentile(99) / 1000.0;
+    }
+
+    // The system keeps up when it serves what was offered, within the error budget and latency SLO
+    public boolean saturated(LoadTestSettings settings) {
+        return achievedRate() < offeredRate * 0.95
+                || errorRate() > settings.maxErrorRate()
+                || p99Millis() > settings.p99SloMillis();
+    }
+}
@@ -2,8 +2,11 @@ package com.pm.patientservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+// Needed for OutboxRelay
+@EnableScheduling
 public class PatientServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,71 @@
+package com.pm.patientservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Component
+// In process read-through cache for patient lookups. Caffeine evicts with W-TinyLFU once maxSize is reached.
+// byId and idByEmail are kept in step: an entry leaving byId takes its email mapping with it, so the
+// email index never says an email is taken after we stopped tracking that patient
+public class PatientCache {
+    private final Cache<UUID, PatientResponseDTO> byId;
+    private final Cache<String, UUID> idByEmail;
+
+    public PatientCache(@Value("${patient.cache.max-size:100000}") long maxSize,
+                        @Value("${patient.cache.ttl:PT10M}") Duration ttl) {
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .removalListener((UUID id, PatientResponseDTO patient, RemovalCause cause) -> {
+                    // REPLACED means the same patient was put again, the new put manages the email entry
+                    if (patient != null && cause != RemovalCause.REPLACED) {
+                        idByEmail.asMap().remove(patient.getEmail(), id);
+                    }
+                })
+                .build();
+    }
+
+    public PatientResponseDTO get(UUID id, Function<UUID, PatientResponseDTO> loader) {
+        PatientResponseDTO patient = byId.get(id, loader);
+        idByEmail.put(patient.getEmail(), id);
+        return patient;
+    }
+
+    // for callers that can't block on a loader, e.g. the reactive profile
+    public PatientResponseDTO getIfPresent(UUID id) {
+        return byId.getIfPresent(id);
+    }
+
+    public void put(PatientResponseDTO patient) {
+        UUID id = UUID.fromString(patient.getId());
+        PatientResponseDTO previous = byId.asMap().put(id, patient);
+        if (previous != null && !previous.getEmail().equals(patient.getEmail())) {
+            idByEmail.asMap().remove(previous.getEmail(), id);
+        }
+        idByEmail.put(patient.getEmail(), id);
+    }
+
+    // null when we don't know, the caller has to ask the database
+    public UUID findIdByEmail(String email) {
+        return idByEmail.getIfPresent(email);
+    }
+
+    public void invalidate(UUID id) {
+        PatientResponseDTO previous = byId.asMap().remove(id);
+        if (previous != null) {
+            idByEmail.asMap().remove(previous.getEmail(), id);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pm.patientservice.config;
+
+import com.pm.patientservice.grpc.BillingChannelPool;
+import com.pm.patientservice.grpc.PinnedDnsNameResolverProvider;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.micrometer.core.instrument.binder.grpc.ObservationGrpcClientInterceptor;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class BillingChannelConfig {
+    private static final Logger log = LoggerFactory.getLogger(BillingChannelConfig.class);
+
+    @Bean
+    public BillingChannelPool billingChannelPool(
+            @Value("${billing.service.address:localhost}") String serverAddress,
+            @Value("${billing.service.grpc.port:9002}") int serverPort,
+            // 0 sizes the pool so max-in-flight calls fit under the server's per connection stream limit
+            @Value("${billing.service.channel.pool-size:0}") int poolSize,
+            @Value("${billing.service.max-in-flight:256}") int maxInFlight,
+            @Value("${billing.service.channel.max-concurrent-streams:100}") int maxConcurrentStreams,
+            @Value("${billing.service.channel.keepalive-time:PT30S}") Duration keepAliveTime,
+            @Value("${billing.service.channel.keepalive-timeout:PT5S}") Duration keepAliveTimeout,
+            @Value("${billing.service.channel.flow-control-window:1048576}") int flowControlWindow,
+            @Value("${billing.service.channel.idle-timeout:PT5M}") Duration idleTimeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            ObservationRegistry observationRegistry) {
+        int size = poolSize > 0 ? poolSize : Math.max(1, (maxInFlight + maxConcurrentStreams - 1) / maxConcurrentStreams);
+        // Response callbacks run on virtual threads too instead of grpc's shared cached pool
+        ExecutorService callbackExecutor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        // Billing accounts live in each billing instance's own log (BillingAccountStore), so every call has to
+        // reach the same instance or a retried create makes a second account and a lookup misses the first.
+        // billing-dns hands all channels of the pool the same single address, extra billing replicas get no calls
+        PinnedDnsNameResolverProvider.register();
+        String target = PinnedDnsNameResolverProvider.SCHEME + ":///" + serverAddress + ":" + serverPort;
+        log.info("Connecting to Billing Service GRPC service at {} with {} channel(s)", target, size);
+
+        return BillingChannelPool.create(size, () -> {
+            NettyChannelBuilder builder = NettyChannelBuilder.forTarget(target)
+                    .usePlaintext()
+                    .defaultLoadBalancingPolicy("pick_first")
+                    // pings find dead connections behind NATs and load balancers before a call does,
+                    // billing-service has to permit this interval (grpc.server.permit-keep-alive-time)
+                    .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(keepAliveTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .keepAliveWithoutCalls(true)
+                    .idleTimeout(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    // initial window, BDP based tuning grows it from here on high latency links
+                    .flowControlWindow(flowControlWindow)
+                    // grpc.client latency timer and active calls per method, and the traceparent in the call metadata
+                    .intercept(new ObservationGrpcClientInterceptor(observationRegistry));
+            if (callbackExecutor != null) {
+                builder.executor(callbackExecutor);
+            }
+            return builder.build();
+        }, callbackExecutor);
+    }
+}
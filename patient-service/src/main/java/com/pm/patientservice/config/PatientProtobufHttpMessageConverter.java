@@ -0,0 +1,59 @@
+package com.pm.patientservice.config;
+
+import com.google.protobuf.Message;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
+import com.pm.patientservice.mapper.PatientProtoMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+// Writes the patient response DTOs as protobuf when the client sends Accept: application/x-protobuf,
+// so the controller keeps returning the same DTOs for JSON and protobuf. Responses only, requests stay JSON
+public class PatientProtobufHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    public static final String PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+    public PatientProtobufHttpMessageConverter() {
+        super(PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PatientResponseDTO.class == clazz
+                || PatientPageResponseDTO.class == clazz
+                || PatientSearchResponseDTO.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        Message message = switch (body) {
+            case PatientResponseDTO patient -> PatientProtoMapper.toProto(patient);
+            case PatientPageResponseDTO page -> PatientProtoMapper.toProto(page);
+            case PatientSearchResponseDTO page -> PatientProtoMapper.toProto(page);
+            default -> throw new IllegalArgumentException("Unsupported body " + body.getClass());
+        };
+        message.writeTo(outputMessage.getBody());
+    }
+
+    @Override
+    protected Long getContentLength(Object body, MediaType contentType) {
+        // unknown until mapped, the body is small enough that chunked encoding costs nothing
+        return null;
+    }
+}
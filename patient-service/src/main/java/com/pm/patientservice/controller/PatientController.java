@@ -1,50 +1,142 @@
 package com.pm.patientservice.controller;
 
+import com.pm.patientservice.config.PatientProtobufHttpMessageConverter;
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
 import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.idempotency.IdempotencyStore;
+import com.pm.patientservice.service.PatientImportService;
 import com.pm.patientservice.service.PatientService;
+import com.pm.patientservice.util.CursorCodec;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.groups.Default;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/patients")
+// ReactivePatientController serves these routes in the reactive profile
+@Profile("!reactive")
 @Tag(name = "Patient", description = "API for managing patient")
 public class PatientController {
+    // scoped to the caller's subject, see USER_SUBJECT
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // sub claim of the token the gateway verified, it drops any value the client sent. Stays the same across
+    // token refreshes, so a retry with a new token still finds its key
+    public static final String USER_SUBJECT = "X-User-Subject";
+    // true on a response that was stored for an earlier request with the same key
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final PatientService patientService;
+    private final PatientImportService patientImportService;
+    private final IdempotencyStore idempotencyStore;
 
-    public PatientController(PatientService patientService) {
+    public PatientController(PatientService patientService, PatientImportService patientImportService,
+                             IdempotencyStore idempotencyStore) {
         this.patientService = patientService;
+        this.patientImportService = patientImportService;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get a page of patients, pass nextCursor back as cursor to get the next page")
+    public ResponseEntity<StreamingResponseBody> getPatients(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        // decoded up front so a bad cursor is still a 400 and not a broken stream
+        UUID after = CursorCodec.decodeOrNull(cursor);
+        StreamingResponseBody body = outputStream -> patientService.writePatients(after, limit, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
-    @GetMapping
-    @Operation(summary = "Get patients")
-    public ResponseEntity<List<PatientResponseDTO>> getPatients() {
-        List<PatientResponseDTO> patients = patientService.getPatients();
+    // Same page as protobuf, picked by content negotiation when the client sends Accept: application/x-protobuf
+    @GetMapping(produces = PatientProtobufHttpMessageConverter.PROTOBUF_VALUE)
+    @Operation(summary = "Get a page of patients as protobuf")
+    public ResponseEntity<PatientPageResponseDTO> getPatientsProtobuf(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "50") int limit) {
+        PatientPageResponseDTO patients = patientService.getPatients(cursor, limit);
         return ResponseEntity.ok().body(patients);
     }
 
-    @PostMapping
-    @Operation(summary = "Create a new patient")
-    public ResponseEntity<PatientResponseDTO> createPatient(@Validated({Default.class, CreatePatientValidationGroup.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
-        PatientResponseDTO patientResponseDTO = patientService.createPatient(patientRequestDTO);
+    @GetMapping("/search")
+    @Operation(summary = "Search patients by partial name, email or address, best matches first")
+    public ResponseEntity<PatientSearchResponseDTO> searchPatients(@RequestParam("q") String query,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "20") int size) {
+        PatientSearchResponseDTO results = patientService.searchPatients(query, page, size);
+        return ResponseEntity.ok().body(results);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get patient")
+    public ResponseEntity<PatientResponseDTO> getPatient(@PathVariable UUID id) {
+        PatientResponseDTO patientResponseDTO = patientService.getPatient(id);
         return ResponseEntity.ok().body(patientResponseDTO);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all patients as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamPatients() {
+        StreamingResponseBody body = outputStream -> patientService.streamPatients(outputStream);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 
+    @GetMapping(value = "/stream", produces = PatientProtobufHttpMessageConverter.PROTOBUF_VALUE)
+    @Operation(summary = "Stream all patients as length delimited protobuf")
+    public ResponseEntity<StreamingResponseBody> streamPatientsProtobuf() {
+        StreamingResponseBody body = outputStream -> patientService.streamPatientsProtobuf(outputStream);
+        return ResponseEntity.ok().contentType(PatientProtobufHttpMessageConverter.PROTOBUF).body(body);
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new patient, a retry with the same Idempotency-Key gets the first response back")
+    public ResponseEntity<PatientResponseDTO> createPatient(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                            @RequestHeader(value = USER_SUBJECT, required = false) String subject,
+                                                            @Validated({Default.class, CreatePatientValidationGroup.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
+        if (idempotencyKey == null) {
+            PatientResponseDTO patientResponseDTO = patientService.createPatient(patientRequestDTO);
+            return ResponseEntity.ok().body(patientResponseDTO);
+        }
+        IdempotencyStore.Result result = idempotencyStore.execute(subject, idempotencyKey, "POST /patients", patientRequestDTO,
+                () -> patientService.createPatient(patientRequestDTO));
+        return idempotentResponse(result);
+
+    }
+
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Bulk import patients from a JSON array, NDJSON or CSV body")
+    public ResponseEntity<PatientImportResponseDTO> importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                   InputStream body) throws IOException {
+        // the body is read as a stream, never bound to a list
+        PatientImportResponseDTO response = patientImportService.importPatients(body, MediaType.parseMediaType(contentType));
+        return ResponseEntity.ok().body(response);
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update patient")
-    public ResponseEntity<PatientResponseDTO> updatePatient(@PathVariable UUID id, @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
-        PatientResponseDTO patientResponseDTO = patientService.updatePatient(id, patientRequestDTO);
-        return ResponseEntity.ok().body(patientResponseDTO);
+    @Operation(summary = "Update patient, a retry with the same Idempotency-Key gets the first response back")
+    public ResponseEntity<PatientResponseDTO> updatePatient(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                            @RequestHeader(value = USER_SUBJECT, required = false) String subject,
+                                                            @PathVariable UUID id, @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
+        if (idempotencyKey == null) {
+            PatientResponseDTO patientResponseDTO = patientService.updatePatient(id, patientRequestDTO);
+            return ResponseEntity.ok().body(patientResponseDTO);
+        }
+        IdempotencyStore.Result result = idempotencyStore.execute(subject, idempotencyKey, "PUT /patients/" + id, patientRequestDTO,
+                () -> patientService.updatePatient(id, patientRequestDTO));
+        return idempotentResponse(result);
 
     }
 
@@ -55,4 +147,9 @@ public class PatientController {
         return ResponseEntity.noContent().build();
     }
 
+    private static ResponseEntity<PatientResponseDTO> idempotentResponse(IdempotencyStore.Result result) {
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
 }
@@ -0,0 +1,78 @@
+package com.pm.patientservice.controller;
+
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.service.ReactivePatientService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.groups.Default;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/patients")
+@Tag(name = "Patient", description = "API for managing patient")
+// Same routes as PatientController on WebFlux. Bulk import stays servlet only
+@Profile("reactive")
+public class ReactivePatientController {
+    private final ReactivePatientService patientService;
+
+    public ReactivePatientController(ReactivePatientService patientService) {
+        this.patientService = patientService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get a page of patients, pass nextCursor back as cursor to get the next page")
+    public Mono<ResponseEntity<PatientPageResponseDTO>> getPatients(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "50") int limit) {
+        return patientService.getPatients(cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search patients by partial name, email or address, best matches first")
+    public Mono<ResponseEntity<PatientSearchResponseDTO>> searchPatients(@RequestParam("q") String query,
+                                                                         @RequestParam(defaultValue = "0") int page,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        return patientService.searchPatients(query, page, size).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get patient")
+    public Mono<ResponseEntity<PatientResponseDTO>> getPatient(@PathVariable UUID id) {
+        return patientService.getPatient(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all patients as newline delimited JSON")
+    public Flux<PatientResponseDTO> streamPatients() {
+        return patientService.streamPatients();
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a new patient")
+    public Mono<ResponseEntity<PatientResponseDTO>> createPatient(@Validated({Default.class, CreatePatientValidationGroup.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
+        return patientService.createPatient(patientRequestDTO).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update patient")
+    public Mono<ResponseEntity<PatientResponseDTO>> updatePatient(@PathVariable UUID id, @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
+        return patientService.updatePatient(id, patientRequestDTO).map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete patient")
+    public Mono<ResponseEntity<Void>> deletePatient(@PathVariable UUID id) {
+        return patientService.deletePatient(id).thenReturn(ResponseEntity.noContent().<Void>build());
+    }
+}
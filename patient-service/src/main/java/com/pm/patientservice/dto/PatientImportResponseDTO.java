@@ -0,0 +1,39 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class PatientImportResponseDTO {
+    private int created;
+    private int failed;
+    private List<PatientImportResultDTO> results;
+
+    public PatientImportResponseDTO(List<PatientImportResultDTO> results) {
+        this.results = results;
+        this.created = (int) results.stream().filter(result -> "CREATED".equals(result.getStatus())).count();
+        this.failed = results.size() - created;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<PatientImportResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<PatientImportResultDTO> results) {
+        this.results = results;
+    }
+}
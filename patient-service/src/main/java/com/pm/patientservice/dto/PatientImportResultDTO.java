@@ -0,0 +1,58 @@
+package com.pm.patientservice.dto;
+
+public class PatientImportResultDTO {
+    // 1 based position of the row in the uploaded body
+    private int row;
+    // CREATED or FAILED
+    private String status;
+    private String id;
+    private String message;
+
+    public static PatientImportResultDTO created(int row, String id) {
+        PatientImportResultDTO result = new PatientImportResultDTO();
+        result.setRow(row);
+        result.setStatus("CREATED");
+        result.setId(id);
+        return result;
+    }
+
+    public static PatientImportResultDTO failed(int row, String message) {
+        PatientImportResultDTO result = new PatientImportResultDTO();
+        result.setRow(row);
+        result.setStatus("FAILED");
+        result.setMessage(message);
+        return result;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
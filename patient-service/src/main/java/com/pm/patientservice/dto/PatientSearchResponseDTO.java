@@ -0,0 +1,50 @@
+package com.pm.patientservice.dto;
+
+import java.util.List;
+
+public class PatientSearchResponseDTO {
+    // best match first
+    private List<PatientResponseDTO> patients;
+    private int page;
+    private int size;
+    private boolean hasMore;
+
+    public PatientSearchResponseDTO(List<PatientResponseDTO> patients, int page, int size, boolean hasMore) {
+        this.patients = patients;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+    }
+
+    public List<PatientResponseDTO> getPatients() {
+        return patients;
+    }
+
+    public void setPatients(List<PatientResponseDTO> patients) {
+        this.patients = patients;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.exception;
+
+public class EventPublishException extends RuntimeException {
+    public EventPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,12 +2,22 @@ package com.pm.patientservice.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -25,6 +35,17 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
 
     }
+    // WebFlux reports failed @Validated bodies with its own exception, see ReactivePatientController
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, String>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getFieldErrors().forEach((error) -> {
+            errors.put(error.getField(), error.getDefaultMessage());
+        });
+
+        return ResponseEntity.badRequest().body(errors);
+    }
+
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleEmailAlreadyExistsException(EmailAlreadyExistsException ex) {
         log.warn("Email Already Exists {}", ex.getMessage());
@@ -41,4 +62,89 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.badRequest().body(errors);
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("Invalid Cursor {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Invalid cursor");
+
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(InvalidSearchQueryException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidSearchQueryException(InvalidSearchQueryException ex) {
+        log.warn("Invalid Search Query {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", ex.getMessage());
+
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException ex) {
+        log.warn("Invalid Idempotency Key {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", ex.getMessage());
+
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    // The key was first used with another body or another patient, replaying that response would be wrong
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        log.warn("Idempotency Key Mismatch {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Idempotency-Key was already used for a different request");
+
+        return ResponseEntity.unprocessableEntity().body(errors);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleIdempotencyKeyInProgressException(IdempotencyKeyInProgressException ex) {
+        log.warn("Idempotency Key In Progress {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "A request with this Idempotency-Key is still in progress, try again later");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errors);
+    }
+
+    // Raised while picking JSON or protobuf. An Accept header that doesn't parse is the client's mistake,
+    // a valid one we have no representation for stays a 406. Content type is fixed, the Accept can't be used for it
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<Map<String, String>> handleHttpMediaTypeNotAcceptableException(HttpMediaTypeNotAcceptableException ex,
+                                                                                         WebRequest request) {
+        String[] accept = request.getHeaderValues(HttpHeaders.ACCEPT);
+        try {
+            if (accept != null) {
+                MediaType.parseMediaTypes(List.of(accept));
+            }
+        } catch (InvalidMediaTypeException e) {
+            log.warn("Invalid Accept Header {}", e.getMessage());
+            Map<String, String> errors = new HashMap<>();
+            errors.put("message", "Invalid Accept header");
+
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(errors);
+        }
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+
+    @ExceptionHandler(BillingUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleBillingUnavailableException(BillingUnavailableException ex) {
+        log.warn("Billing Unavailable {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Billing service unavailable, try again later");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errors);
+    }
+
+    // Hikari gave up waiting for a connection, with virtual threads far more requests than connections can queue up
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, String>> handleConnectionUnavailableException(RuntimeException ex) {
+        log.warn("Database Connection Unavailable {}", ex.getMessage());
+        Map<String, String> errors = new HashMap<>();
+        errors.put("message", "Service busy, try again later");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errors);
+    }
 }
@@ -0,0 +1,79 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Spreads calls over several channels. Each channel keeps one HTTP/2 connection per billing instance and the
+// server caps the streams on a connection, so with more calls in flight than that cap the extra ones would
+// queue on the client even though billing has capacity. Stubs take this as their Channel
+public class BillingChannelPool extends Channel {
+    private static final Logger log = LoggerFactory.getLogger(BillingChannelPool.class);
+
+    private final List<ManagedChannel> channels;
+    private final ExecutorService callbackExecutor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private BillingChannelPool(List<ManagedChannel> channels, ExecutorService callbackExecutor) {
+        this.channels = channels;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // callbackExecutor is the executor the channels were built with, shut down after them (may be null)
+    public static BillingChannelPool create(int size, Supplier<ManagedChannel> channelFactory,
+                                            ExecutorService callbackExecutor) {
+        List<ManagedChannel> channels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            channels.add(channelFactory.get());
+        }
+        return new BillingChannelPool(List.copyOf(channels), callbackExecutor);
+    }
+
+    @Override
+    public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
+            MethodDescriptor<RequestT, ResponseT> methodDescriptor, CallOptions callOptions) {
+        return channels.get(Math.floorMod(next.getAndIncrement(), channels.size())).newCall(methodDescriptor, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return channels.get(0).authority();
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    // Lets in-flight calls finish for up to the timeout, then cancels whatever is left
+    public void shutdown(long timeout, TimeUnit unit) {
+        channels.forEach(ManagedChannel::shutdown);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (ManagedChannel channel : channels) {
+                long remaining = deadline - System.nanoTime();
+                if (!channel.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    log.warn("Billing channel did not terminate in time, cancelling its calls");
+                    channel.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            channels.forEach(ManagedChannel::shutdownNow);
+        } finally {
+            if (callbackExecutor != null) {
+                callbackExecutor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.pm.patientservice.grpc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+// Stops calling billing for a while after too many failures in a row, so a slow billing service
+// fails fast instead of tying up threads. After openMs one trial call decides if we close again
+public class BillingCircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(BillingCircuitBreaker.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    // A lock instead of synchronized so virtual threads waiting here don't pin their carrier thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public BillingCircuitBreaker(@Value("${billing.service.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                 @Value("${billing.service.circuit-breaker.open-ms:10000}") long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    public boolean allowRequest() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+                // let a single trial call through
+                state = State.HALF_OPEN;
+                return true;
+            }
+            return state == State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordSuccess() {
+        State previous;
+        lock.lock();
+        try {
+            previous = state;
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (previous != State.CLOSED) {
+            log.info("Billing circuit breaker closed");
+        }
+    }
+
+    public void recordFailure() {
+        int failures = -1;
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                failures = consecutiveFailures;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (failures > 0) {
+            log.warn("Billing circuit breaker opened after {} failures", failures);
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.pm.patientservice.grpc;
+
+import billing.BillingAccountResult;
+import billing.BillingRequest;
+import billing.BillingResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Collects single billing requests from many callers and sends them together as frames of one
+// CreateBillingAccounts stream, a batch is flushed when it is full or maxDelayMs after its first request
+class BillingRequestBatcher {
+    private static final Logger log = LoggerFactory.getLogger(BillingRequestBatcher.class);
+
+    private record Pending(BillingRequest request, CompletableFuture<BillingResponse> future) {}
+
+    private final BlockingQueue<Pending> queue;
+    private final Function<List<BillingRequest>, CompletableFuture<List<BillingAccountResult>>> sender;
+    private final int maxBatchSize;
+    private final long maxDelayMs;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    BillingRequestBatcher(Function<List<BillingRequest>, CompletableFuture<List<BillingAccountResult>>> sender,
+                          int maxBatchSize, long maxDelayMs, int maxQueued) {
+        this.sender = sender;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMs = maxDelayMs;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.flusher = new Thread(this::run, "billing-batcher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    CompletableFuture<BillingResponse> submit(BillingRequest request) {
+        CompletableFuture<BillingResponse> future = new CompletableFuture<>();
+        if (!queue.offer(new Pending(request, future))) {
+            future.completeExceptionally(new IllegalStateException("Billing batch queue is full"));
+        }
+        return future;
+    }
+
+    void shutdown() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Pending first = queue.take();
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long flushAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(flushAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<BillingRequest> requests = batch.stream().map(Pending::request).toList();
+        sender.apply(requests).whenComplete((results, error) -> {
+            if (error != null) {
+                log.warn("Billing batch of {} failed: {}", batch.size(), error.getMessage());
+                batch.forEach(pending -> pending.future().completeExceptionally(error));
+                return;
+            }
+            // results come back in request order, one per request
+            for (int i = 0; i < batch.size(); i++) {
+                BillingAccountResult result = results.get(i);
+                CompletableFuture<BillingResponse> future = batch.get(i).future();
+                if ("FAILED".equals(result.getStatus())) {
+                    future.completeExceptionally(new IllegalStateException(result.getError()));
+                } else {
+                    future.complete(BillingResponse.newBuilder()
+                            .setAccountId(result.getAccountId())
+                            .setStatus(result.getStatus())
+                            .build());
+                }
+            }
+        });
+    }
+}
@@ -1,36 +1,269 @@
 package com.pm.patientservice.grpc;
 
+import billing.BillingAccountResult;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc;
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.pm.patientservice.exception.BillingUnavailableException;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class BillingServiceGrpcClient {
     private static final Logger log = LoggerFactory.getLogger(BillingServiceGrpcClient.class);
     private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
+    private final BillingServiceGrpc.BillingServiceFutureStub futureStub;
+    private final BillingServiceGrpc.BillingServiceStub asyncStub;
+    private final BillingRequestBatcher batcher;
+    private final BillingCircuitBreaker circuitBreaker;
+    // Caps how many async calls can wait on billing at once, extra calls are rejected right away
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService retryScheduler;
+    private final BillingChannelPool channelPool;
+    private final Duration shutdownTimeout;
+    private final long deadlineMs;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
 
     public BillingServiceGrpcClient(
-            @Value("${billing.service.address:localhost}") String serverAddress,
-            @Value("${billing.service.grpc.port:9002}") int serverPort
+            BillingChannelPool channelPool,
+            @Value("${billing.service.deadline-ms:2000}") long deadlineMs,
+            @Value("${billing.service.max-in-flight:256}") int maxInFlight,
+            @Value("${billing.service.retry.max-attempts:4}") int maxAttempts,
+            @Value("${billing.service.retry.initial-backoff-ms:100}") long initialBackoffMs,
+            @Value("${billing.service.retry.max-backoff-ms:2000}") long maxBackoffMs,
+            @Value("${billing.service.batch.max-size:200}") int batchMaxSize,
+            @Value("${billing.service.batch.max-delay-ms:5}") long batchMaxDelayMs,
+            @Value("${billing.service.channel.shutdown-timeout:PT5S}") Duration shutdownTimeout,
+            BillingCircuitBreaker circuitBreaker,
+            MeterRegistry meterRegistry
     ){
-        log.info("Connecting to Billing Service GRPC service at{} : {}", serverAddress, serverPort);
-        ManagedChannel channel = ManagedChannelBuilder.forAddress(serverAddress, serverPort).usePlaintext().build();
-
-        blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+        this.channelPool = channelPool;
+        this.shutdownTimeout = shutdownTimeout;
+        blockingStub = BillingServiceGrpc.newBlockingStub(channelPool);
+        futureStub = BillingServiceGrpc.newFutureStub(channelPool);
+        asyncStub = BillingServiceGrpc.newStub(channelPool);
 
+        this.circuitBreaker = circuitBreaker;
+        this.inFlight = new Semaphore(maxInFlight);
+        Gauge.builder("billing.client.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Async billing calls waiting on billing-service, including retries")
+                .register(meterRegistry);
+        this.deadlineMs = deadlineMs;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "billing-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batcher = new BillingRequestBatcher(this::createBillingAccounts, batchMaxSize, batchMaxDelayMs, maxInFlight * 4);
     }
+
     public BillingResponse createBillingAccount(String patientId, String name, String email){
+        if (!circuitBreaker.allowRequest()) {
+            throw new BillingUnavailableException("Billing circuit breaker is open");
+        }
+        BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId).setName(name).
+                setEmail(email).build();
+
+        try {
+            BillingResponse response = blockingStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                    .createBillingAccount(request);
+            circuitBreaker.recordSuccess();
+            log.info("Received response from billing service: {}", response);
+            return response;
+        } catch (StatusRuntimeException e) {
+            recordOutcome(e);
+            throw e;
+        }
+    }
+
+    // Non blocking variant, retries transient failures with exponential backoff and never holds the caller's thread
+    public CompletableFuture<BillingResponse> createBillingAccountAsync(String patientId, String name, String email){
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(new BillingUnavailableException("Too many billing calls in flight"));
+        }
+        BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId).setName(name).
+                setEmail(email).build();
+
+        CompletableFuture<BillingResponse> result = new CompletableFuture<>();
+        result.whenComplete((response, error) -> inFlight.release());
+        attempt(request, 1, result);
+        return result;
+    }
+
+    private void attempt(BillingRequest request, int attemptNumber, CompletableFuture<BillingResponse> result){
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(new BillingUnavailableException("Billing circuit breaker is open"));
+            return;
+        }
+
+        ListenableFuture<BillingResponse> call = futureStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS)
+                .createBillingAccount(request);
+        Futures.addCallback(call, new FutureCallback<>() {
+            @Override
+            public void onSuccess(BillingResponse response) {
+                circuitBreaker.recordSuccess();
+                log.info("Received response from billing service: {}", response);
+                result.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                recordOutcome(t);
+                if (attemptNumber < maxAttempts && isRetryable(t)) {
+                    long backoff = backoffMs(attemptNumber);
+                    log.warn("Billing call for patient {} failed (attempt {}), retrying in {} ms: {}",
+                            request.getPatientId(), attemptNumber, backoff, t.getMessage());
+                    retryScheduler.schedule(() -> attempt(request, attemptNumber + 1, result), backoff, TimeUnit.MILLISECONDS);
+                } else {
+                    result.completeExceptionally(t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    // Same result as createBillingAccountAsync, but concurrent callers share one CreateBillingAccounts stream.
+    // A batch that fails transiently falls back to single calls for the remaining attempts
+    public CompletableFuture<BillingResponse> createBillingAccountBatched(String patientId, String name, String email){
+        if (!inFlight.tryAcquire()) {
+            return CompletableFuture.failedFuture(new BillingUnavailableException("Too many billing calls in flight"));
+        }
         BillingRequest request = BillingRequest.newBuilder().setPatientId(patientId).setName(name).
                 setEmail(email).build();
 
-        BillingResponse response = blockingStub.createBillingAccount(request);
-        log.info("Received response from billing service: {}", response);
-        return response;
+        CompletableFuture<BillingResponse> result = new CompletableFuture<>();
+        result.whenComplete((response, error) -> inFlight.release());
+        batcher.submit(request).whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else if (maxAttempts > 1 && isRetryable(error)) {
+                long backoff = backoffMs(1);
+                log.warn("Billing batch call for patient {} failed, retrying in {} ms: {}",
+                        patientId, backoff, error.getMessage());
+                retryScheduler.schedule(() -> attempt(request, 2, result), backoff, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    // Sends all requests over one bidirectional stream, only writing while the transport is ready so
+    // a big import never piles up in the channel buffer. Completes with one result per request, in order
+    public CompletableFuture<List<BillingAccountResult>> createBillingAccounts(List<BillingRequest> requests){
+        CompletableFuture<List<BillingAccountResult>> result = new CompletableFuture<>();
+        if (requests.isEmpty()) {
+            result.complete(List.of());
+            return result;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            result.completeExceptionally(new BillingUnavailableException("Billing circuit breaker is open"));
+            return result;
+        }
+
+        List<BillingAccountResult> results = new ArrayList<>(requests.size());
+        Iterator<BillingRequest> toSend = requests.iterator();
+        // scale the deadline with the batch size so big imports aren't cut off
+        long streamDeadlineMs = deadlineMs * Math.max(1, requests.size() / 100 + 1);
+
+        asyncStub.withDeadlineAfter(streamDeadlineMs, TimeUnit.MILLISECONDS)
+                .createBillingAccounts(new ClientResponseObserver<BillingRequest, BillingAccountResult>() {
+                    private boolean sendCompleted = false;
+
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<BillingRequest> requestStream) {
+                        // gRPC runs this handler serially whenever the stream can take more frames
+                        requestStream.setOnReadyHandler(() -> {
+                            while (requestStream.isReady() && toSend.hasNext()) {
+                                requestStream.onNext(toSend.next());
+                            }
+                            if (!toSend.hasNext() && !sendCompleted) {
+                                sendCompleted = true;
+                                requestStream.onCompleted();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onNext(BillingAccountResult billingAccountResult) {
+                        results.add(billingAccountResult);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        recordOutcome(t);
+                        result.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        circuitBreaker.recordSuccess();
+                        if (results.size() != requests.size()) {
+                            result.completeExceptionally(new IllegalStateException(
+                                    "Billing returned " + results.size() + " results for " + requests.size() + " requests"));
+                        } else {
+                            result.complete(results);
+                        }
+                    }
+                });
+        return result;
+    }
+
+    // Only failures that say billing is unhealthy count against the circuit breaker
+    private void recordOutcome(Throwable t){
+        if (isRetryable(t)) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    private static boolean isRetryable(Throwable t){
+        Status.Code code = Status.fromThrowable(t).getCode();
+        return code == Status.Code.UNAVAILABLE
+                || code == Status.Code.DEADLINE_EXCEEDED
+                || code == Status.Code.RESOURCE_EXHAUSTED;
+    }
+
+    // initial * 2^(attempt-1) capped at max, with jitter so retries from many callers don't line up
+    private long backoffMs(int attemptNumber){
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attemptNumber - 1, 20));
+        return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+
+    // Stops taking new work first, then drains the channels so calls already sent can still complete
+    @PreDestroy
+    public void shutdown(){
+        batcher.shutdown();
+        retryScheduler.shutdownNow();
+        channelPool.shutdown(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,140 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Status;
+import io.grpc.StatusOr;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// billing-dns:///host:port resolves like dns:///host:port, but every channel to the same host:port gets the same
+// single address. Each channel of BillingChannelPool resolves on its own, plain DNS with pick_first would let them
+// connect to different billing instances. The address is kept while DNS still returns it, once it's gone the first
+// channel to notice moves to the new first address and the others follow on their next resolution
+public class PinnedDnsNameResolverProvider extends NameResolverProvider {
+    public static final String SCHEME = "billing-dns";
+
+    private static final PinnedDnsNameResolverProvider INSTANCE = new PinnedDnsNameResolverProvider();
+    private static final AtomicBoolean REGISTERED = new AtomicBoolean();
+
+    // authority (host:port) -> address every channel to it uses
+    private final Map<String, List<SocketAddress>> pinned = new ConcurrentHashMap<>();
+
+    // Adds the billing-dns scheme to grpc's default registry, safe to call more than once
+    public static void register() {
+        if (REGISTERED.compareAndSet(false, true)) {
+            NameResolverRegistry.getDefaultRegistry().register(INSTANCE);
+        }
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        return 5;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        NameResolverProvider dns = NameResolverRegistry.getDefaultRegistry().getProviderForScheme("dns");
+        NameResolver delegate = dns.newNameResolver(URI.create("dns:" + targetUri.getRawSchemeSpecificPart()), args);
+        if (delegate == null) {
+            return null;
+        }
+        return new PinnedNameResolver(delegate);
+    }
+
+    // One group with the pinned address, which stays while DNS still returns it
+    List<EquivalentAddressGroup> pin(String authority, List<EquivalentAddressGroup> groups) {
+        if (groups.isEmpty()) {
+            return groups;
+        }
+        List<SocketAddress> addresses = pinned.compute(authority, (key, current) -> {
+            if (current != null) {
+                for (EquivalentAddressGroup group : groups) {
+                    if (group.getAddresses().equals(current)) {
+                        return current;
+                    }
+                }
+            }
+            return groups.get(0).getAddresses();
+        });
+        for (EquivalentAddressGroup group : groups) {
+            if (group.getAddresses().equals(addresses)) {
+                return List.of(group);
+            }
+        }
+        return List.of(groups.get(0));
+    }
+
+    private final class PinnedNameResolver extends NameResolver {
+        private final NameResolver delegate;
+
+        private PinnedNameResolver(NameResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getServiceAuthority() {
+            return delegate.getServiceAuthority();
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+            delegate.start(new Listener2() {
+                @Override
+                public void onResult(ResolutionResult result) {
+                    listener.onResult(pinned(result));
+                }
+
+                @Override
+                public Status onResult2(ResolutionResult result) {
+                    return listener.onResult2(pinned(result));
+                }
+
+                @Override
+                public void onError(Status error) {
+                    listener.onError(error);
+                }
+            });
+        }
+
+        @Override
+        public void refresh() {
+            delegate.refresh();
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        private ResolutionResult pinned(ResolutionResult result) {
+            StatusOr<List<EquivalentAddressGroup>> addresses = result.getAddressesOrError();
+            if (!addresses.hasValue()) {
+                return result;
+            }
+            return result.toBuilder()
+                    .setAddressesOrError(StatusOr.fromValue(pin(getServiceAuthority(), addresses.getValue())))
+                    .build();
+        }
+    }
+}
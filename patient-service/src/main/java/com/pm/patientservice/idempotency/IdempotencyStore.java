@@ -0,0 +1,266 @@
+package com.pm.patientservice.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.IdempotencyKeyInProgressException;
+import com.pm.patientservice.exception.IdempotencyKeyMismatchException;
+import com.pm.patientservice.exception.InvalidIdempotencyKeyException;
+import com.pm.patientservice.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+@Component
+// Remembers the response of each Idempotency-Key so a retried POST/PUT /patients gets the first response back
+// instead of running again. Keys belong to the client that sent them, two clients can use the same key without
+// seeing each other's responses. A key seen while its first request is still running waits for that request, so
+// concurrent duplicates share one execution. Keys are spread over lock striped maps, each bounded and kept in
+// creation order, so the oldest finished keys are dropped first. A failed request is forgotten, its retry runs again.
+// With patient.idempotency.persist=true responses are also written to the idempotency_key table, which covers
+// restarts and retries landing on another replica (those are not coalesced, only replayed once stored)
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    public record Result(PatientResponseDTO response, boolean replayed) {}
+
+    private static final class Entry {
+        private final String requestHash;
+        private final long createdAtNanos;
+        private final CompletableFuture<PatientResponseDTO> response = new CompletableFuture<>();
+
+        private Entry(String requestHash, long createdAtNanos) {
+            this.requestHash = requestHash;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+
+    // ReentrantLock rather than synchronized so waiting virtual threads don't pin their carrier
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    }
+
+    private final Stripe[] stripes;
+    private final int maxEntriesPerStripe;
+    private final long ttlNanos;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyStore(@Value("${patient.idempotency.max-size:100000}") int maxSize,
+                            @Value("${patient.idempotency.stripes:64}") int stripes,
+                            @Value("${patient.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${patient.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                            @Value("${patient.idempotency.persist:false}") boolean persist,
+                            IdempotencyKeyRepository repository, ObjectMapper objectMapper) {
+        // power of two so a stripe is picked with a mask
+        int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxEntriesPerStripe = Math.max(1, (maxSize + stripeCount - 1) / stripeCount);
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeout = waitTimeout;
+        this.repository = persist ? repository : null;
+        this.objectMapper = objectMapper;
+    }
+
+    // client is the caller's verified subject (null when there is none), only its hash is kept.
+    // operation tells requests apart that share a key, e.g. "PUT /patients/{id}" with the patient id filled in
+    public Result execute(String client, String key, String operation, Object request, Supplier<PatientResponseDTO> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String clientHash = clientHash(client);
+        String requestHash = hash(operation, request);
+        String scopedKey = clientHash + ":" + key;
+        Stripe stripe = stripeFor(scopedKey);
+        long now = System.nanoTime();
+        Entry entry;
+        boolean owner = false;
+
+        stripe.lock.lock();
+        try {
+            removeExpired(stripe, now);
+            entry = stripe.entries.get(scopedKey);
+            if (entry == null) {
+                entry = new Entry(requestHash, now);
+                stripe.entries.put(scopedKey, entry);
+                owner = true;
+                if (stripe.entries.size() > maxEntriesPerStripe) {
+                    evictOldestDone(stripe);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!entry.requestHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        if (!owner) {
+            return new Result(await(key, entry), true);
+        }
+
+        Optional<PatientResponseDTO> stored;
+        PatientResponseDTO response;
+        try {
+            stored = findPersisted(clientHash, key, requestHash);
+            response = stored.orElseGet(action);
+        } catch (RuntimeException | Error e) {
+            // waiting duplicates see the same failure, a later retry runs the request again
+            stripe.lock.lock();
+            try {
+                stripe.entries.remove(scopedKey, entry);
+            } finally {
+                stripe.lock.unlock();
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+
+        // the action has committed, from here on nothing may fail the request or forget the key
+        entry.response.complete(response);
+        if (stored.isEmpty()) {
+            persist(clientHash, key, requestHash, response);
+        }
+        return new Result(response, stored.isPresent());
+    }
+
+    @Scheduled(fixedDelayString = "${patient.idempotency.purge-interval-ms:600000}")
+    public void purgePersisted() {
+        if (repository == null) {
+            return;
+        }
+        int purged = repository.deleteOlderThan(Instant.now().minus(ttl));
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private PatientResponseDTO await(String key, Entry entry) {
+        try {
+            return entry.response.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Request with Idempotency-Key " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Request with Idempotency-Key " + key + " is still in progress");
+        }
+    }
+
+    // Entries are in creation order, so expired ones are at the head. A request still running is never expired
+    private void removeExpired(Stripe stripe, long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = stripe.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (now - entry.createdAtNanos < ttlNanos || !entry.response.isDone()) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    // Over the cap the oldest finished entry goes. A request still running is never dropped, its concurrent
+    // duplicates would run it a second time, so a stripe can go over the cap by the number of running requests
+    private void evictOldestDone(Stripe stripe) {
+        Iterator<Entry> iterator = stripe.entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().response.isDone()) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private Optional<PatientResponseDTO> findPersisted(String clientHash, String key, String requestHash) {
+        if (repository == null) {
+            return Optional.empty();
+        }
+        return repository.find(clientHash, key, Instant.now().minus(ttl)).map(stored -> {
+            if (!stored.requestHash().equals(requestHash)) {
+                throw new IdempotencyKeyMismatchException("Idempotency-Key " + key + " was already used for a different request");
+            }
+            try {
+                return objectMapper.readValue(stored.response(), PatientResponseDTO.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // The request already succeeded, losing the stored copy only means a retry elsewhere is not deduplicated,
+    // so a failure is logged and never thrown
+    private void persist(String clientHash, String key, String requestHash, PatientResponseDTO response) {
+        if (repository == null) {
+            return;
+        }
+        try {
+            repository.insert(clientHash, key, requestHash, objectMapper.writeValueAsBytes(response), Instant.now());
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Could not persist Idempotency-Key {}", key, e);
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String clientHash(String client) {
+        if (client == null) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(client.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pm.patientservice.kafka;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+// Events are published by OutboxRelay on its own thread, long after the request that caused them. The
+// request's trace is stored with the outbox row and the publish span is started as its child, so the
+// Kafka send and the consumers on the other side show up in the same trace as the HTTP call
+public class EventTraceContext {
+    private static final String TRACE_PARENT = "traceparent";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public EventTraceContext(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    // W3C traceparent of the current span, null outside of a trace
+    public String capture() {
+        Span span = tracer.currentSpan();
+        if (span == null) {
+            return null;
+        }
+        Map<String, String> headers = new HashMap<>();
+        propagator.inject(span.context(), headers, Map::put);
+        return headers.get(TRACE_PARENT);
+    }
+
+    public Span startChild(String traceParent, String name) {
+        if (traceParent == null) {
+            return tracer.nextSpan().name(name).start();
+        }
+        return propagator.extract(Map.of(TRACE_PARENT, traceParent), Map::get).name(name).start();
+    }
+
+    public Tracer.SpanInScope inScope(Span span) {
+        return tracer.withSpan(span);
+    }
+}
@@ -0,0 +1,66 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.exception.EventPublishException;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.repository.OutboxRelayLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+// Drains the outbox table into Kafka in batches. Rows are only deleted after the broker acked them,
+// so a crash or a failed send means the batch is sent again (at least once delivery). Only the replica holding
+// OutboxRelayLock relays, the others skip the tick, so events keep the order they were written in
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelayLock relayLock;
+    private final kafkaProducer kafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxRelayLock relayLock, kafkaProducer kafkaProducer,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.relayLock = relayLock;
+        this.kafkaProducer = kafkaProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay(){
+        try {
+            // keep going while we get full batches so a backlog drains without waiting for the next tick
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (EventPublishException e){
+            log.warn("Outbox batch not published, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch(){
+        if (!relayLock.tryAcquire()) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxEventRepository.findAllByOrderByCreatedAtAsc(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        kafkaProducer.sendBatch(batch);
+        outboxEventRepository.deleteAllInBatch(batch);
+        log.debug("Published {} patient events", batch.size());
+        return batch.size();
+    }
+}
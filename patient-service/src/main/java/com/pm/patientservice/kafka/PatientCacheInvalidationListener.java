@@ -0,0 +1,38 @@
+package com.pm.patientservice.kafka;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.patientservice.cache.PatientCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+import java.util.UUID;
+
+@Service
+// Every replica reads the patient topic with its own group id, so a change made through one
+// replica evicts the cached patient everywhere
+public class PatientCacheInvalidationListener {
+    private static final Logger log = LoggerFactory.getLogger(PatientCacheInvalidationListener.class);
+
+    private final PatientCache patientCache;
+
+    public PatientCacheInvalidationListener(PatientCache patientCache) {
+        this.patientCache = patientCache;
+    }
+
+    @KafkaListener(topics = kafkaProducer.PATIENT_TOPIC,
+            groupId = "patient-service-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void onPatientEvent(byte[] event) {
+        try {
+            PatientEvent patientEvent = PatientEvent.parseFrom(event);
+            if (!PatientEventType.PATIENT_CREATED.name().equals(patientEvent.getEventType())) {
+                patientCache.invalidate(UUID.fromString(patientEvent.getPatientId()));
+            }
+        } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+            log.error("Error deserializing event {}", e.getMessage());
+        }
+    }
+}
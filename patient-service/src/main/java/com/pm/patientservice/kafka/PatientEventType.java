@@ -0,0 +1,7 @@
+package com.pm.patientservice.kafka;
+
+public enum PatientEventType {
+    PATIENT_CREATED,
+    PATIENT_UPDATED,
+    PATIENT_DELETED
+}
@@ -1,36 +1,65 @@
 package com.pm.patientservice.kafka;
 
-import com.pm.patientservice.model.Patient;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.pm.patientservice.exception.EventPublishException;
+import com.pm.patientservice.model.OutboxEvent;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import patient.events.PatientEvent;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class kafkaProducer {
 
-    private static final Logger log = LoggerFactory.getLogger(kafkaProducer.class);
+    public static final String PATIENT_TOPIC = "patient";
+
     // Sending Kafka event with these values
     private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final EventTraceContext eventTraceContext;
+    private final long sendTimeoutMs;
 
-    public kafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
+    public kafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, EventTraceContext eventTraceContext,
+                         @Value("${outbox.relay.send-timeout-ms:10000}") long sendTimeoutMs) {
         this.kafkaTemplate = kafkaTemplate;
+        this.eventTraceContext = eventTraceContext;
+        this.sendTimeoutMs = sendTimeoutMs;
     }
 
-    public void sendEvent(Patient patient){
-        PatientEvent event = PatientEvent.newBuilder()
-                .setPatientId(patient.getId().toString())
-                .setName(patient.getName())
-                .setEmail(patient.getEmail())
-                // create sub category to avoid confusion
-                .setEventType("PATIENT_CREATED")
-                .build();
+    // Hands the whole batch to the producer before waiting, so linger.ms/batch.size can group the records
+    // Throws if any record is not acknowledged, the caller keeps the rows and retries them
+    public void sendBatch(List<OutboxEvent> events){
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            // The template's observation runs inside this span and writes its traceparent into the record headers
+            Span span = eventTraceContext.startChild(event.getTraceParent(), "patient-event publish");
+            try (Tracer.SpanInScope ignored = eventTraceContext.inScope(span)) {
+                // Send via byteArray to convert easily during consumer, keyed by patient id to keep per patient order
+                CompletableFuture<SendResult<String, byte[]>> future =
+                        kafkaTemplate.send(PATIENT_TOPIC, event.getAggregateId(), event.getPayload());
+                futures[i] = future.whenComplete((result, error) -> {
+                    if (error != null) {
+                        span.error(error);
+                    }
+                    span.end();
+                });
+            }
+        }
+
         try {
-            // Send via byteArray to convert easily during consumer
-            kafkaTemplate.send("patient", event.toByteArray());
-        } catch (Exception e){
-            log.info("Error in sending patient created event: {}", event);
+            CompletableFuture.allOf(futures).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventPublishException("Interrupted while sending patient events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new EventPublishException("Error in sending patient events", e);
         }
     }
 }
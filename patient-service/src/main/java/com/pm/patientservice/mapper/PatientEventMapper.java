@@ -0,0 +1,92 @@
+package com.pm.patientservice.mapper;
+
+import com.google.protobuf.Timestamp;
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientRow;
+import patient.events.PatientEvent;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+public class PatientEventMapper {
+    public static final int SCHEMA_VERSION = 2;
+
+    public static PatientEvent toEvent(Patient patient, PatientEventType eventType, List<String> changedFields){
+        return toEvent(patient.getId(), sequence(patient.getVersion(), eventType), eventType, changedFields,
+                fields(patient));
+    }
+
+    public static PatientEvent toEvent(PatientRow patient, PatientEventType eventType, List<String> changedFields){
+        return toEvent(patient.id(), sequence(patient.version(), eventType), eventType, changedFields,
+                fields(patient));
+    }
+
+    // field name -> value, in the names used by changed_fields
+    public static Map<String, Object> fields(Patient patient){
+        return fields(patient.getName(), patient.getEmail(), patient.getAddress(),
+                patient.getDateOfBirth(), patient.getRegisterDate());
+    }
+
+    public static Map<String, Object> fields(PatientRow patient){
+        return fields(patient.name(), patient.email(), patient.address(),
+                patient.dateOfBirth(), patient.registeredDate());
+    }
+
+    public static List<String> changedFields(Map<String, Object> before, Map<String, Object> after){
+        List<String> changed = new ArrayList<>();
+        after.forEach((field, value) -> {
+            if (!Objects.equals(before.get(field), value)) {
+                changed.add(field);
+            }
+        });
+        return changed;
+    }
+
+    // every field is new on create, nothing is left to change on delete
+    public static List<String> defaultChangedFields(Map<String, Object> fields, PatientEventType eventType){
+        return eventType == PatientEventType.PATIENT_CREATED ? List.copyOf(fields.keySet()) : List.of();
+    }
+
+    // a delete doesn't bump the row version, its event still has to come after the last update
+    private static long sequence(Long version, PatientEventType eventType){
+        long current = version == null ? 0 : version;
+        return eventType == PatientEventType.PATIENT_DELETED ? current + 1 : current;
+    }
+
+    private static Map<String, Object> fields(String name, String email, String address,
+                                              LocalDate dateOfBirth, LocalDate registeredDate){
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", name);
+        fields.put("email", email);
+        fields.put("address", address);
+        fields.put("date_of_birth", dateOfBirth);
+        fields.put("registered_date", registeredDate);
+        return fields;
+    }
+
+    private static PatientEvent toEvent(UUID patientId, long sequence, PatientEventType eventType,
+                                        List<String> changedFields, Map<String, Object> fields){
+        Instant now = Instant.now();
+        return PatientEvent.newBuilder()
+                .setPatientId(patientId.toString())
+                // create sub category to avoid confusion
+                .setEventType(eventType.name())
+                .setSchemaVersion(SCHEMA_VERSION)
+                .setSequence(sequence)
+                .setOccurredAt(Timestamp.newBuilder().setSeconds(now.getEpochSecond()).setNanos(now.getNano()))
+                .addAllChangedFields(changedFields)
+                .setName((String) fields.get("name"))
+                .setEmail((String) fields.get("email"))
+                .setAddress((String) fields.get("address"))
+                .setDateOfBirth(Objects.toString(fields.get("date_of_birth"), ""))
+                .setRegisteredDate(Objects.toString(fields.get("registered_date"), ""))
+                .build();
+    }
+}
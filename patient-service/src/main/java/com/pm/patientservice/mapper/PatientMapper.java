@@ -1,12 +1,28 @@
 package com.pm.patientservice.mapper;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.model.BillingStatus;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.model.PatientRow;
 
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.UUID;
 
 public class PatientMapper {
+    // Field names of PatientResponseDTO, encoded once instead of per row
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString ADDRESS = new SerializedString("address");
+    private static final SerializableString DATE_OF_BIRTH = new SerializedString("dateOfBirth");
+
     public static PatientResponseDTO toDTO(Patient patient){
         PatientResponseDTO patientResponseDTO = new PatientResponseDTO();
         patientResponseDTO.setId(patient.getId().toString());
@@ -17,6 +33,45 @@ public class PatientMapper {
         return patientResponseDTO;
     }
 
+    public static PatientResponseDTO toDTO(PatientRow patient){
+        PatientResponseDTO patientResponseDTO = new PatientResponseDTO();
+        patientResponseDTO.setId(patient.id().toString());
+        patientResponseDTO.setName(patient.name());
+        patientResponseDTO.setAddress(patient.address());
+        patientResponseDTO.setEmail(patient.email());
+        patientResponseDTO.setDateOfBirth(patient.dateOfBirth().toString());
+        return patientResponseDTO;
+    }
+
+    // for plain JDBC reads that select id, name, email, address, date_of_birth
+    public static PatientResponseDTO toDTO(ResultSet rs) throws SQLException {
+        PatientResponseDTO patientResponseDTO = new PatientResponseDTO();
+        patientResponseDTO.setId(rs.getString("id"));
+        patientResponseDTO.setName(rs.getString("name"));
+        patientResponseDTO.setEmail(rs.getString("email"));
+        patientResponseDTO.setAddress(rs.getString("address"));
+        patientResponseDTO.setDateOfBirth(rs.getDate("date_of_birth").toLocalDate().toString());
+        return patientResponseDTO;
+    }
+
+    // Same JSON as a PatientResponseDTO but written field by field from the row, for reads that select
+    // id, name, email, address, date_of_birth in that order. Postgres and H2 both return the uuid and
+    // the date as the strings the DTO would hold, so no UUID or LocalDate is created per row
+    public static void writeJson(ResultSet rs, JsonGenerator generator) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeString(rs.getString(1));
+        generator.writeFieldName(NAME);
+        generator.writeString(rs.getString(2));
+        generator.writeFieldName(EMAIL);
+        generator.writeString(rs.getString(3));
+        generator.writeFieldName(ADDRESS);
+        generator.writeString(rs.getString(4));
+        generator.writeFieldName(DATE_OF_BIRTH);
+        generator.writeString(rs.getString(5));
+        generator.writeEndObject();
+    }
+
     public static Patient toModel(PatientRequestDTO patientRequestDTO){
         Patient patient = new Patient();
         patient.setName(patientRequestDTO.getName());
@@ -27,4 +82,17 @@ public class PatientMapper {
 
         return patient;
     }
+
+    // billing starts out pending, the account id is filled in once billing-service answers
+    public static PatientRow toRow(PatientRequestDTO patientRequestDTO){
+        return new PatientRow(UUID.randomUUID(),
+                patientRequestDTO.getName(),
+                patientRequestDTO.getEmail(),
+                patientRequestDTO.getAddress(),
+                LocalDate.parse(patientRequestDTO.getDateOfBirth()),
+                LocalDate.parse(patientRequestDTO.getRegisteredDate()),
+                null,
+                BillingStatus.PENDING,
+                null);
+    }
 }
@@ -0,0 +1,62 @@
+package com.pm.patientservice.mapper;
+
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
+import patient.api.Patient;
+import patient.api.PatientPage;
+import patient.api.PatientSearchPage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class PatientProtoMapper {
+    public static Patient toProto(PatientResponseDTO patientResponseDTO){
+        UUID id = UUID.fromString(patientResponseDTO.getId());
+        return Patient.newBuilder()
+                .setIdMostSigBits(id.getMostSignificantBits())
+                .setIdLeastSigBits(id.getLeastSignificantBits())
+                .setName(patientResponseDTO.getName())
+                .setEmail(patientResponseDTO.getEmail())
+                .setAddress(patientResponseDTO.getAddress())
+                .setDateOfBirthEpochDay((int) LocalDate.parse(patientResponseDTO.getDateOfBirth()).toEpochDay())
+                .build();
+    }
+
+    // straight from a JDBC row, skips the string forms the DTO uses
+    public static Patient toProto(ResultSet rs) throws SQLException {
+        UUID id = rs.getObject("id", UUID.class);
+        return Patient.newBuilder()
+                .setIdMostSigBits(id.getMostSignificantBits())
+                .setIdLeastSigBits(id.getLeastSignificantBits())
+                .setName(rs.getString("name"))
+                .setEmail(rs.getString("email"))
+                .setAddress(rs.getString("address"))
+                .setDateOfBirthEpochDay((int) rs.getDate("date_of_birth").toLocalDate().toEpochDay())
+                .build();
+    }
+
+    public static PatientPage toProto(PatientPageResponseDTO page){
+        PatientPage.Builder builder = PatientPage.newBuilder();
+        for (PatientResponseDTO patient : page.getPatients()) {
+            builder.addPatients(toProto(patient));
+        }
+        if (page.getNextCursor() != null) {
+            builder.setNextCursor(page.getNextCursor());
+        }
+        return builder.build();
+    }
+
+    public static PatientSearchPage toProto(PatientSearchResponseDTO page){
+        PatientSearchPage.Builder builder = PatientSearchPage.newBuilder()
+                .setPage(page.getPage())
+                .setSize(page.getSize())
+                .setHasMore(page.isHasMore());
+        for (PatientResponseDTO patient : page.getPatients()) {
+            builder.addPatients(toProto(patient));
+        }
+        return builder.build();
+    }
+}
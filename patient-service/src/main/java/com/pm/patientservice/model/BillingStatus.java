@@ -0,0 +1,7 @@
+package com.pm.patientservice.model;
+
+public enum BillingStatus {
+    // patient saved, billing account not confirmed yet
+    PENDING,
+    ACTIVE
+}
@@ -10,7 +10,8 @@ import java.util.UUID;
 @Entity
 public class Patient {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    // Generated in memory (no IDENTITY round trip) so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     @NotNull
@@ -31,6 +32,16 @@ public class Patient {
     @Column(name = "registeredDate")
     private LocalDate registerDate;
 
+    // null until billing-service confirmed the account
+    private String billingAccountId;
+
+    @Enumerated(EnumType.STRING)
+    private BillingStatus billingStatus;
+
+    // Bumped on every update, also used as the sequence of the patient's events
+    @Version
+    private Long version;
+
     public UUID getId() {
         return id;
     }
@@ -79,5 +90,29 @@ public class Patient {
         this.registerDate = registerDate;
     }
 
+    public String getBillingAccountId() {
+        return billingAccountId;
+    }
+
+    public void setBillingAccountId(String billingAccountId) {
+        this.billingAccountId = billingAccountId;
+    }
+
+    public BillingStatus getBillingStatus() {
+        return billingStatus;
+    }
+
+    public void setBillingStatus(BillingStatus billingStatus) {
+        this.billingStatus = billingStatus;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 
 }
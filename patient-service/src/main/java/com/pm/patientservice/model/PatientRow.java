@@ -0,0 +1,26 @@
+package com.pm.patientservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// R2DBC view of the patient table for the reactive profile, Patient stays the JPA entity.
+// Columns follow the default snake case naming, e.g. dateOfBirth -> date_of_birth
+@Table("patient")
+public record PatientRow(@Id UUID id,
+                         String name,
+                         String email,
+                         String address,
+                         LocalDate dateOfBirth,
+                         LocalDate registeredDate,
+                         String billingAccountId,
+                         BillingStatus billingStatus,
+                         @Version Long version) {
+
+    public PatientRow withDetails(String name, String email, String address, LocalDate dateOfBirth) {
+        return new PatientRow(id, name, email, address, dateOfBirth, registeredDate, billingAccountId, billingStatus, version);
+    }
+}
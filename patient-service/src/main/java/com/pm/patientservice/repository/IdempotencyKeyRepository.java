@@ -0,0 +1,47 @@
+package com.pm.patientservice.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+// Stored responses for Idempotency-Key, see IdempotencyStore
+public class IdempotencyKeyRepository {
+
+    public record StoredResponse(String requestHash, byte[] response) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<StoredResponse> find(String clientHash, String key, Instant notBefore) {
+        List<StoredResponse> rows = jdbcTemplate.query(
+                "SELECT request_hash, response FROM idempotency_key WHERE client_hash = ? AND idempotency_key = ? AND created_at >= ?",
+                (rs, rowNum) -> new StoredResponse(rs.getString("request_hash"), rs.getBytes("response")),
+                clientHash, key, Timestamp.from(notBefore));
+        return rows.stream().findFirst();
+    }
+
+    // false when another replica stored the key first, its response wins
+    public boolean insert(String clientHash, String key, String requestHash, byte[] response, Instant createdAt) {
+        try {
+            jdbcTemplate.update(
+                    "INSERT INTO idempotency_key (client_hash, idempotency_key, request_hash, response, created_at) VALUES (?, ?, ?, ?, ?)",
+                    clientHash, key, requestHash, response, Timestamp.from(createdAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE created_at < ?", Timestamp.from(cutoff));
+    }
+}
@@ -0,0 +1,17 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    // Oldest first. Only read by the replica holding OutboxRelayLock, so no row locks are needed: skipping rows
+    // another relay had locked would let later events of the same patient overtake them
+    List<OutboxEvent> findAllByOrderByCreatedAtAsc(Limit limit);
+}
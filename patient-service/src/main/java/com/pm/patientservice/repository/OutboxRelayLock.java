@@ -0,0 +1,38 @@
+package com.pm.patientservice.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+// Lets one patient-service replica at a time relay the outbox, so events of a patient reach Kafka in the order
+// (and with the sequence) they were written. On PostgreSQL this is a transaction scoped advisory lock, released
+// when the relay's batch commits. Other databases are only used embedded by a single instance, which always gets it
+public class OutboxRelayLock {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelayLock.class);
+    // any constant works as long as nothing else in the database takes the same advisory lock
+    private static final long LOCK_KEY = 0x6f7574626f78L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean advisoryLocks;
+
+    public OutboxRelayLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        this.advisoryLocks = "PostgreSQL".equalsIgnoreCase(database);
+        if (!advisoryLocks) {
+            log.info("{} has no advisory locks, the outbox relay assumes a single instance", database);
+        }
+    }
+
+    // Must run inside the relay's transaction, false while another replica holds the lock
+    public boolean tryAcquire() {
+        if (!advisoryLocks) {
+            return true;
+        }
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY));
+    }
+}
@@ -0,0 +1,56 @@
+package com.pm.patientservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+
+@Repository
+// Plain JDBC access for the paths where loading managed entities is too expensive
+public class PatientJdbcRepository {
+    // How many rows the driver pulls from the cursor per round trip
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Postgres only uses a server side cursor when auto commit is off, so callers must run this inside a transaction
+    public void streamAll(RowCallbackHandler rowHandler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, name, email, address, date_of_birth FROM patient ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rowHandler);
+    }
+
+    // Keyset page of the columns the listing returns, after is null for the first page.
+    // Rows go straight to the handler, nothing is loaded into a persistence context
+    public void findPage(UUID after, int limit, RowCallbackHandler rowHandler) {
+        if (after == null) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT id, name, email, address, date_of_birth FROM patient ORDER BY id LIMIT ?");
+                statement.setInt(1, limit);
+                statement.setFetchSize(limit);
+                return statement;
+            }, rowHandler);
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, name, email, address, date_of_birth FROM patient WHERE id > ? ORDER BY id LIMIT ?");
+            statement.setObject(1, after);
+            statement.setInt(2, limit);
+            statement.setFetchSize(limit);
+            return statement;
+        }, rowHandler);
+    }
+}
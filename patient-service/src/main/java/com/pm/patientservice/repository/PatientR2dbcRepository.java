@@ -0,0 +1,29 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.PatientRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+// Reactive mirror of PatientRepository, only created in the reactive profile
+public interface PatientR2dbcRepository extends ReactiveCrudRepository<PatientRow, UUID> {
+    @Query("SELECT EXISTS (SELECT 1 FROM patient WHERE lower(email) = lower(:email))")
+    Mono<Boolean> existsByEmailIgnoreCase(String email);
+
+    @Query("SELECT EXISTS (SELECT 1 FROM patient WHERE lower(email) = lower(:email) AND id <> :id)")
+    Mono<Boolean> existsByEmailIgnoreCaseAndIdNot(String email, UUID id);
+
+    @Query("SELECT * FROM patient ORDER BY id LIMIT :limit")
+    Flux<PatientRow> findFirstPage(int limit);
+
+    @Query("SELECT * FROM patient WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<PatientRow> findPageAfter(UUID after, int limit);
+
+    @Modifying
+    @Query("UPDATE patient SET billing_account_id = :billingAccountId, billing_status = :billingStatus WHERE id = :id")
+    Mono<Integer> updateBillingAccount(UUID id, String billingAccountId, String billingStatus);
+}
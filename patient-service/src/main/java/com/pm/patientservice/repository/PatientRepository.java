@@ -1,14 +1,35 @@
 package com.pm.patientservice.repository;
 
+import com.pm.patientservice.model.BillingStatus;
 import com.pm.patientservice.model.Patient;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, UUID> {
-    boolean existsByEmail(String email);
-    boolean existsByEmailAndIdNot(String email, UUID id);
+    // Emails are compared ignoring case through lower(email), which idx_patient_email_lower covers.
+    // Not the derived IgnoreCase methods, those compare upper(email) and would miss the index
+    @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Patient p WHERE lower(p.email) = lower(:email)")
+    boolean existsByEmailIgnoreCase(String email);
+
+    @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Patient p WHERE lower(p.email) = lower(:email) AND p.id <> :id")
+    boolean existsByEmailIgnoreCaseAndIdNot(String email, UUID id);
+
+    // One query per import chunk instead of one existsByEmailIgnoreCase per row, takes and returns lower case emails
+    @Query("SELECT lower(p.email) FROM Patient p WHERE lower(p.email) IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    List<Patient> findByBillingStatus(BillingStatus billingStatus, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Patient p SET p.billingAccountId = :billingAccountId, p.billingStatus = :billingStatus WHERE p.id = :id")
+    int updateBillingAccount(UUID id, String billingAccountId, BillingStatus billingStatus);
 
 }
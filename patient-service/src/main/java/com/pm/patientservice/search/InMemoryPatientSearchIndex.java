@@ -0,0 +1,135 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Trigram inverted index for H2 and local development, where there is no pg_trgm. Words are padded
+// the way pg_trgm does it ("  john "), so a short query still matches the start of a word
+class InMemoryPatientSearchIndex implements PatientSearchIndex {
+    // share of the query trigrams a patient must contain to be returned
+    private static final double MIN_SCORE = 0.3;
+
+    private record Entry(PatientResponseDTO patient, Set<String> trigrams, String text) {}
+
+    private record Scored(Entry entry, double score) {}
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+    // writers only, searches read the maps without locking
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Override
+    public List<PatientResponseDTO> search(String query, int offset, int limit) {
+        String normalized = query.toLowerCase();
+        Set<String> queryTrigrams = trigrams(normalized);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, Integer> hits = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<UUID> ids = postings.get(trigram);
+            if (ids != null) {
+                for (UUID id : ids) {
+                    hits.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Scored> scored = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> hit : hits.entrySet()) {
+            Entry entry = entries.get(hit.getKey());
+            if (entry == null) {
+                continue;
+            }
+            double score = (double) hit.getValue() / queryTrigrams.size();
+            // an exact substring ranks above fuzzy matches, same as the LIKE branch of the Postgres query
+            if (entry.text().contains(normalized)) {
+                score += 1;
+            }
+            if (score >= MIN_SCORE) {
+                scored.add(new Scored(entry, score));
+            }
+        }
+        scored.sort(Comparator.comparingDouble(Scored::score).reversed()
+                .thenComparing(s -> s.entry().patient().getId()));
+
+        List<PatientResponseDTO> page = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = offset; i < scored.size() && page.size() < limit; i++) {
+            page.add(scored.get(i).entry().patient());
+        }
+        return page;
+    }
+
+    @Override
+    public void index(PatientResponseDTO patient) {
+        UUID id = UUID.fromString(patient.getId());
+        String text = (patient.getName() + " " + patient.getEmail() + " " + patient.getAddress()).toLowerCase();
+        Entry entry = new Entry(patient, trigrams(text), text);
+        writeLock.lock();
+        try {
+            Entry previous = entries.put(id, entry);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+            for (String trigram : entry.trigrams()) {
+                postings.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(UUID id) {
+        writeLock.lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void removePostings(UUID id, Entry entry) {
+        for (String trigram : entry.trigrams()) {
+            Set<UUID> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
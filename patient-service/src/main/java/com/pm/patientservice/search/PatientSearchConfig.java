@@ -0,0 +1,48 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.repository.PatientJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+@Configuration
+// Picks the search implementation: pg_trgm indexes on Postgres, an in memory index everywhere else (H2)
+public class PatientSearchConfig {
+    private static final Logger log = LoggerFactory.getLogger(PatientSearchConfig.class);
+
+    @Bean
+    public PatientSearchIndex patientSearchIndex(DataSource dataSource, JdbcTemplate jdbcTemplate,
+                                                 PatientJdbcRepository patientJdbcRepository,
+                                                 TransactionTemplate transactionTemplate,
+                                                 // auto, postgres or memory
+                                                 @Value("${patient.search.mode:auto}") String mode)
+            throws MetaDataAccessException {
+        boolean postgres = switch (mode) {
+            case "postgres" -> true;
+            case "memory" -> false;
+            default -> "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource,
+                    DatabaseMetaData::getDatabaseProductName));
+        };
+        if (postgres) {
+            log.info("Patient search uses pg_trgm indexes");
+            return new PostgresPatientSearchIndex(jdbcTemplate);
+        }
+
+        InMemoryPatientSearchIndex index = new InMemoryPatientSearchIndex();
+        // streamAll needs a transaction for the cursor on Postgres, harmless elsewhere
+        transactionTemplate.executeWithoutResult(status -> patientJdbcRepository.streamAll(rs ->
+                index.index(PatientMapper.toDTO(rs))));
+        log.info("Patient search uses an in memory index of {} patients", index.size());
+        return index;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+
+import java.util.List;
+import java.util.UUID;
+
+// Ranked partial matching on name, email and address. Best match first
+public interface PatientSearchIndex {
+
+    List<PatientResponseDTO> search(String query, int offset, int limit);
+
+    // Called after a patient change commits. Indexes kept by the database can ignore these
+    default void index(PatientResponseDTO patient) {
+    }
+
+    default void remove(UUID id) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.pm.patientservice.search;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.mapper.PatientMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// Uses pg_trgm: LIKE '%q%' and the word similarity operator <% are both answered by the GIN trigram indexes,
+// so a search touches only the candidate rows instead of scanning the table
+class PostgresPatientSearchIndex implements PatientSearchIndex {
+    private static final String SEARCH_SQL = """
+            SELECT id, name, email, address, date_of_birth,
+                   GREATEST(word_similarity(?, lower(name)), word_similarity(?, lower(email)),
+                            word_similarity(?, lower(address)))
+                   + CASE WHEN lower(name) LIKE ? OR lower(email) LIKE ? THEN 1 ELSE 0 END AS score
+            FROM patient
+            WHERE lower(name) LIKE ? OR lower(email) LIKE ? OR lower(address) LIKE ?
+               OR ? <% lower(name) OR ? <% lower(email) OR ? <% lower(address)
+            ORDER BY score DESC, id
+            LIMIT ? OFFSET ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The indexes come from the V4__patient_search_trigram migration
+    PostgresPatientSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<PatientResponseDTO> search(String query, int offset, int limit) {
+        String normalized = query.toLowerCase();
+        String contains = "%" + escapeLike(normalized) + "%";
+        String prefix = escapeLike(normalized) + "%";
+        return jdbcTemplate.query(SEARCH_SQL, (rs, rowNum) -> PatientMapper.toDTO(rs),
+                normalized, normalized, normalized,
+                prefix, prefix,
+                contains, contains, contains,
+                normalized, normalized, normalized,
+                limit, offset);
+    }
+
+    // backslash is the default LIKE escape character in Postgres
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
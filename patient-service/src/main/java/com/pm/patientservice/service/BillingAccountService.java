@@ -0,0 +1,122 @@
+package com.pm.patientservice.service;
+
+import billing.BillingAccountResult;
+import billing.BillingRequest;
+import billing.BillingResponse;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+// Creates billing accounts for new patients. In async mode the request returns right away and the
+// account id is written back once billing answers, patients still PENDING are retried by reconcile()
+public class BillingAccountService {
+    private static final Logger log = LoggerFactory.getLogger(BillingAccountService.class);
+
+    private final BillingServiceGrpcClient billingServiceGrpcClient;
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean async;
+    private final int reconcileBatchSize;
+    // patients with a billing call in flight on this instance, so reconcile() doesn't send them twice
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public BillingAccountService(BillingServiceGrpcClient billingServiceGrpcClient, PatientRepository patientRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 // async returns without waiting on billing, sync keeps the old blocking call
+                                 @Value("${billing.create-mode:async}") String createMode,
+                                 @Value("${billing.reconcile.batch-size:100}") int reconcileBatchSize) {
+        this.billingServiceGrpcClient = billingServiceGrpcClient;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.async = "async".equalsIgnoreCase(createMode);
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+
+    // Called inside the create transaction with the saved (managed) patient
+    public void createAccount(Patient patient){
+        if (!async) {
+            BillingResponse response = billingServiceGrpcClient.createBillingAccount(
+                    patient.getId().toString(), patient.getName(), patient.getEmail());
+            patient.setBillingAccountId(response.getAccountId());
+            patient.setBillingStatus(BillingStatus.ACTIVE);
+            return;
+        }
+
+        patient.setBillingStatus(BillingStatus.PENDING);
+        UUID patientId = patient.getId();
+        String name = patient.getName();
+        String email = patient.getEmail();
+        // Only call billing once the patient is committed, otherwise billing could get a patient that was rolled back
+        TransactionUtils.afterCommit(() -> requestAccount(patientId, name, email));
+    }
+
+    // Bulk version for imports, the whole chunk goes to billing over one CreateBillingAccounts stream after commit
+    public void createAccounts(List<Patient> patients){
+        List<BillingRequest> requests = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            patient.setBillingStatus(BillingStatus.PENDING);
+            requests.add(BillingRequest.newBuilder()
+                    .setPatientId(patient.getId().toString())
+                    .setName(patient.getName())
+                    .setEmail(patient.getEmail())
+                    .build());
+        }
+        TransactionUtils.afterCommit(() -> billingServiceGrpcClient.createBillingAccounts(requests)
+                .whenComplete((results, error) -> {
+                    if (error != null) {
+                        log.warn("Billing accounts for {} imported patients not created yet, will reconcile: {}",
+                                requests.size(), error.getMessage());
+                        return;
+                    }
+                    transactionTemplate.executeWithoutResult(status -> {
+                        for (BillingAccountResult result : results) {
+                            if (!"FAILED".equals(result.getStatus())) {
+                                patientRepository.updateBillingAccount(UUID.fromString(result.getPatientId()),
+                                        result.getAccountId(), BillingStatus.ACTIVE);
+                            }
+                        }
+                    });
+                }));
+    }
+
+    @Scheduled(fixedDelayString = "${billing.reconcile.interval-ms:30000}")
+    public void reconcile(){
+        List<Patient> pending = patientRepository.findByBillingStatus(BillingStatus.PENDING, Limit.of(reconcileBatchSize));
+        for (Patient patient : pending) {
+            requestAccount(patient.getId(), patient.getName(), patient.getEmail());
+        }
+    }
+
+    private void requestAccount(UUID patientId, String name, String email){
+        if (!inFlight.add(patientId)) {
+            return;
+        }
+        // creates and reconcile passes arrive in bursts, the batcher sends them as frames of one stream
+        billingServiceGrpcClient.createBillingAccountBatched(patientId.toString(), name, email)
+                .whenComplete((response, error) -> {
+                    inFlight.remove(patientId);
+                    if (error != null) {
+                        log.warn("Billing account for patient {} not created yet, will reconcile: {}", patientId, error.getMessage());
+                        return;
+                    }
+                    transactionTemplate.executeWithoutResult(status -> patientRepository.updateBillingAccount(
+                            patientId, response.getAccountId(), BillingStatus.ACTIVE));
+                });
+    }
+}
@@ -0,0 +1,51 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.kafka.EventTraceContext;
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.mapper.PatientEventMapper;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import patient.events.PatientEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final EventTraceContext eventTraceContext;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, EventTraceContext eventTraceContext) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventTraceContext = eventTraceContext;
+    }
+
+    // MANDATORY makes sure the event is only stored together with the patient change that caused it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePatientEvent(Patient patient, PatientEventType eventType){
+        enqueuePatientEvent(patient, eventType,
+                PatientEventMapper.defaultChangedFields(PatientEventMapper.fields(patient), eventType));
+    }
+
+    // For updates the patient must be flushed first, so its version is the one the change produced
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePatientEvent(Patient patient, PatientEventType eventType, List<String> changedFields){
+        outboxEventRepository.save(toOutboxEvent(PatientEventMapper.toEvent(patient, eventType, changedFields)));
+    }
+
+    // Also used by ReactivePatientService, which writes the row through R2DBC
+    public OutboxEvent toOutboxEvent(PatientEvent event){
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(event.getPatientId());
+        outboxEvent.setEventType(event.getEventType());
+        outboxEvent.setPayload(event.toByteArray());
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEvent.setTraceParent(eventTraceContext.capture());
+        return outboxEvent;
+    }
+}
@@ -0,0 +1,177 @@
+package com.pm.patientservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientImportResultDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.validators.CreatePatientValidationGroup;
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+// Reads a large body row by row and imports it in chunks: one email lookup per chunk,
+// batched JDBC inserts, and one billing stream per chunk. Each chunk commits on its own
+public class PatientImportService {
+    private static final Logger log = LoggerFactory.getLogger(PatientImportService.class);
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private record ImportRow(int row, PatientRequestDTO request) {}
+
+    private final PatientRepository patientRepository;
+    private final OutboxService outboxService;
+    private final BillingAccountService billingAccountService;
+    private final PatientSearchIndex patientSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+    private final int chunkSize;
+
+    public PatientImportService(PatientRepository patientRepository, OutboxService outboxService,
+                                BillingAccountService billingAccountService, PatientSearchIndex patientSearchIndex,
+                                TransactionTemplate transactionTemplate,
+                                EntityManager entityManager, Validator validator, ObjectMapper objectMapper,
+                                // keep in line with hibernate.jdbc.batch_size
+                                @Value("${patient.import.chunk-size:500}") int chunkSize) {
+        this.patientRepository = patientRepository;
+        this.outboxService = outboxService;
+        this.billingAccountService = billingAccountService;
+        this.patientSearchIndex = patientSearchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        // handles both a JSON array and newline delimited objects
+        this.jsonReader = objectMapper.readerFor(PatientRequestDTO.class);
+        this.csvReader = new CsvMapper().readerFor(PatientRequestDTO.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public PatientImportResponseDTO importPatients(InputStream body, MediaType contentType) throws IOException {
+        ObjectReader reader = TEXT_CSV.isCompatibleWith(contentType) ? csvReader : jsonReader;
+        List<PatientImportResultDTO> results = new ArrayList<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        int rowNumber = 0;
+
+        try (MappingIterator<PatientRequestDTO> rows = reader.readValues(body)) {
+            while (rows.hasNextValue()) {
+                PatientRequestDTO request = rows.nextValue();
+                rowNumber++;
+                chunk.add(new ImportRow(rowNumber, request));
+                if (chunk.size() == chunkSize) {
+                    results.addAll(importChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // everything before the malformed row is still imported, the rest of the body is skipped
+            log.warn("Patient import stopped at row {}: {}", rowNumber + 1, e.getOriginalMessage());
+            results.addAll(importChunk(chunk));
+            results.add(PatientImportResultDTO.failed(rowNumber + 1, "Malformed row, import stopped: " + e.getOriginalMessage()));
+            return new PatientImportResponseDTO(results);
+        }
+        results.addAll(importChunk(chunk));
+        return new PatientImportResponseDTO(results);
+    }
+
+    private List<PatientImportResultDTO> importChunk(List<ImportRow> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        PatientImportResultDTO[] results = new PatientImportResultDTO[chunk.size()];
+
+        // validate and drop duplicates inside the chunk before touching the database, emails ignore case
+        Map<String, Integer> indexByEmail = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            ImportRow row = chunk.get(i);
+            Set<ConstraintViolation<PatientRequestDTO>> violations =
+                    validator.validate(row.request(), Default.class, CreatePatientValidationGroup.class);
+            if (!violations.isEmpty()) {
+                results[i] = PatientImportResultDTO.failed(row.row(), violations.iterator().next().getMessage());
+            } else if (indexByEmail.putIfAbsent(row.request().getEmail().toLowerCase(Locale.ROOT), i) != null) {
+                results[i] = PatientImportResultDTO.failed(row.row(), "Duplicate email in import");
+            }
+        }
+
+        Set<String> existingEmails = indexByEmail.isEmpty()
+                ? Set.of() : new HashSet<>(patientRepository.findExistingEmails(indexByEmail.keySet()));
+
+        List<Patient> patients = new ArrayList<>(indexByEmail.size());
+        List<Integer> patientIndexes = new ArrayList<>(indexByEmail.size());
+        for (Map.Entry<String, Integer> entry : indexByEmail.entrySet()) {
+            ImportRow row = chunk.get(entry.getValue());
+            if (existingEmails.contains(entry.getKey())) {
+                results[entry.getValue()] = PatientImportResultDTO.failed(row.row(), "Email address already exist");
+                continue;
+            }
+            try {
+                patients.add(PatientMapper.toModel(row.request()));
+                patientIndexes.add(entry.getValue());
+            } catch (DateTimeParseException e) {
+                results[entry.getValue()] = PatientImportResultDTO.failed(row.row(), "Invalid date: " + e.getParsedString());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // hibernate.jdbc.batch_size groups these into a few multi row inserts at flush
+                patientRepository.saveAll(patients);
+                for (Patient patient : patients) {
+                    outboxService.enqueuePatientEvent(patient, PatientEventType.PATIENT_CREATED);
+                }
+                billingAccountService.createAccounts(patients);
+                // through the repository so a constraint violation comes back as DataIntegrityViolationException,
+                // a flush on the shared EntityManager throws Hibernate's untranslated exception
+                patientRepository.flush();
+                // the persistence context would otherwise keep every imported patient until the request ends
+                entityManager.clear();
+            });
+            for (int i = 0; i < patients.size(); i++) {
+                patientSearchIndex.index(PatientMapper.toDTO(patients.get(i)));
+                int index = patientIndexes.get(i);
+                results[index] = PatientImportResultDTO.created(chunk.get(index).row(), patients.get(i).getId().toString());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // another request inserted one of these emails after our check, the chunk was rolled back
+            log.warn("Patient import chunk rolled back: {}", e.getMessage());
+            for (int index : patientIndexes) {
+                results[index] = PatientImportResultDTO.failed(chunk.get(index).row(), "Conflicting write, chunk rolled back");
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
@@ -1,79 +1,267 @@
 package com.pm.patientservice.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pm.patientservice.cache.PatientCache;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
 import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.exception.InvalidSearchQueryException;
 import com.pm.patientservice.exception.PatientNotFoundException;
-import com.pm.patientservice.grpc.BillingServiceGrpcClient;
-import com.pm.patientservice.kafka.kafkaProducer;
+import com.google.protobuf.CodedOutputStream;
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.mapper.PatientEventMapper;
 import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.mapper.PatientProtoMapper;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientJdbcRepository;
 import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.util.CursorCodec;
+import com.pm.patientservice.util.TransactionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class PatientService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_SEARCH_PAGE_SIZE = 100;
+    // offset paging gets slower the deeper it goes, nobody reads past the first few pages of a search
+    private static final int MAX_SEARCH_OFFSET = 1000;
+    private static final int MIN_SEARCH_LENGTH = 2;
+    // Flush the NDJSON stream every n rows so the client starts receiving data early
+    private static final int STREAM_FLUSH_INTERVAL = 500;
 
     private final PatientRepository patientRepository;
-    private final BillingServiceGrpcClient billingServiceGrpcClient;
-    private final kafkaProducer kafkaProducer;
+    private final PatientJdbcRepository patientJdbcRepository;
+    private final BillingAccountService billingAccountService;
+    private final OutboxService outboxService;
+    private final ObjectMapper objectMapper;
+    private final PatientCache patientCache;
+    private final PatientSearchIndex patientSearchIndex;
 
-    public PatientService(PatientRepository patientRepository, BillingServiceGrpcClient billingServiceGrpcClient, kafkaProducer kafkaProducer) {
+    public PatientService(PatientRepository patientRepository, PatientJdbcRepository patientJdbcRepository,
+                          BillingAccountService billingAccountService, OutboxService outboxService,
+                          ObjectMapper objectMapper, PatientCache patientCache,
+                          PatientSearchIndex patientSearchIndex) {
 
         this.patientRepository = patientRepository;
-        this.billingServiceGrpcClient = billingServiceGrpcClient;
-        this.kafkaProducer = kafkaProducer;
+        this.patientJdbcRepository = patientJdbcRepository;
+        this.billingAccountService = billingAccountService;
+        this.outboxService = outboxService;
+        this.objectMapper = objectMapper;
+        this.patientCache = patientCache;
+        this.patientSearchIndex = patientSearchIndex;
     }
 
-    public List<PatientResponseDTO> getPatients(){
-        // Grabs all the patients objects
-        List<Patient> patients = patientRepository.findAll();
+    // One page as DTOs, for callers that need the objects (the protobuf listing). Reads the listed columns
+    // through JDBC, so no entities end up in the persistence context. JSON responses stream via writePatients
+    public PatientPageResponseDTO getPatients(String cursor, int limit){
+        int pageSize = pageSize(limit);
+        List<PatientResponseDTO> patients = new ArrayList<>(pageSize + 1);
+        // Fetch one extra row so we know if there is another page without running a count query
+        patientJdbcRepository.findPage(CursorCodec.decodeOrNull(cursor), pageSize + 1,
+                rs -> patients.add(PatientMapper.toDTO(rs)));
 
-        // Iterate through the patients and puts it inside a mapper almost like JSON
-        return patients.stream()
-                .map(patient -> PatientMapper.toDTO(patient)).toList();
+        boolean hasMore = patients.size() > pageSize;
+        List<PatientResponseDTO> page = hasMore ? patients.subList(0, pageSize) : patients;
+        String nextCursor = hasMore ? CursorCodec.encode(UUID.fromString(page.get(page.size() - 1).getId())) : null;
+        return new PatientPageResponseDTO(page, nextCursor);
     }
 
+    // JSON listing, same body as a serialized PatientPageResponseDTO but written to the response as rows
+    // come off the result set, without building entities, DTOs or the page list
+    public void writePatients(UUID after, int limit, OutputStream outputStream) throws IOException {
+        int pageSize = pageSize(limit);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        String[] lastId = {null};
+        boolean[] hasMore = {false};
+        int[] written = {0};
+
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("patients");
+        patientJdbcRepository.findPage(after, pageSize + 1, rs -> {
+            // the extra row only tells us there is another page
+            if (written[0] == pageSize) {
+                hasMore[0] = true;
+                return;
+            }
+            try {
+                PatientMapper.writeJson(rs, generator);
+            } catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            lastId[0] = rs.getString(1);
+            written[0]++;
+        });
+        generator.writeEndArray();
+        generator.writeStringField("nextCursor", hasMore[0] ? CursorCodec.encode(UUID.fromString(lastId[0])) : null);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private static int pageSize(int limit){
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public PatientSearchResponseDTO searchPatients(String query, int page, int size){
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.length() < MIN_SEARCH_LENGTH) {
+            throw new InvalidSearchQueryException("Search query must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        int firstPage = Math.max(0, page);
+        // compared before multiplying, page * pageSize overflows for a page near Integer.MAX_VALUE
+        if (firstPage > MAX_SEARCH_OFFSET / pageSize) {
+            throw new InvalidSearchQueryException("Search results are limited to the first " + MAX_SEARCH_OFFSET + " matches");
+        }
+        int offset = firstPage * pageSize;
+
+        // one extra result tells us if there is another page
+        List<PatientResponseDTO> results = patientSearchIndex.search(trimmed, offset, pageSize + 1);
+        boolean hasMore = results.size() > pageSize;
+        return new PatientSearchResponseDTO(hasMore ? results.subList(0, pageSize) : results,
+                firstPage, pageSize, hasMore);
+    }
+
+    // Writes one JSON object per line as rows come off the cursor, so the full table is never held in memory
+    @Transactional(readOnly = true)
+    public void streamPatients(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        // We flush in batches ourselves instead of after every row
+        ObjectWriter writer = objectMapper.writerFor(PatientResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int[] written = {0};
+
+        patientJdbcRepository.streamAll(rs -> {
+            PatientResponseDTO patientResponseDTO = PatientMapper.toDTO(rs);
+            try {
+                writer.writeValue(generator, patientResponseDTO);
+                generator.writeRaw('\n');
+                if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            } catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    // Same as streamPatients but as length delimited protobuf Patient messages (parseDelimitedFrom on the client)
+    @Transactional(readOnly = true)
+    public void streamPatientsProtobuf(OutputStream outputStream) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        int[] written = {0};
+
+        patientJdbcRepository.streamAll(rs -> {
+            patient.api.Patient patient = PatientProtoMapper.toProto(rs);
+            try {
+                output.writeUInt32NoTag(patient.getSerializedSize());
+                patient.writeTo(output);
+                if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                    output.flush();
+                    outputStream.flush();
+                }
+            } catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        });
+        output.flush();
+        outputStream.flush();
+    }
+
+    public PatientResponseDTO getPatient(UUID patientId){
+        return patientCache.get(patientId, id -> patientRepository.findById(id)
+                .map(patient -> PatientMapper.toDTO(patient))
+                .orElseThrow(()-> new PatientNotFoundException("Patient not found with ID: "+ id)));
+    }
+
+    @Transactional
     public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO){
-        if(patientRepository.existsByEmail(patientRequestDTO.getEmail())){
+        // a cached email is known to be taken, only a miss has to go to the database
+        if(patientCache.findIdByEmail(patientRequestDTO.getEmail()) != null
+                || patientRepository.existsByEmailIgnoreCase(patientRequestDTO.getEmail())){
             throw new EmailAlreadyExistsException(
                     "A patient with this email already exists" + patientRequestDTO.getEmail());
         }
         Patient newPatient = patientRepository.save(
                 PatientMapper.toModel(patientRequestDTO));
 
-        billingServiceGrpcClient.createBillingAccount(newPatient.getId().toString(), newPatient.getName(), newPatient.getEmail());
+        billingAccountService.createAccount(newPatient);
 
-        kafkaProducer.sendEvent(newPatient);
+        // Published to Kafka by OutboxRelay once this transaction commits
+        outboxService.enqueuePatientEvent(newPatient, PatientEventType.PATIENT_CREATED);
 
-        return PatientMapper.toDTO(newPatient);
+        PatientResponseDTO patientResponseDTO = PatientMapper.toDTO(newPatient);
+        TransactionUtils.afterCommit(() -> {
+            patientCache.put(patientResponseDTO);
+            patientSearchIndex.index(patientResponseDTO);
+        });
+        return patientResponseDTO;
     }
 
+    @Transactional
     public PatientResponseDTO updatePatient(UUID patientId, PatientRequestDTO patientRequestDTO){
 
         Patient patient = patientRepository.findById(patientId).orElseThrow(
                 ()-> new PatientNotFoundException("Patient not found with ID: "+ patientId));
 
-        if(patientRepository.existsByEmailAndIdNot(patientRequestDTO.getEmail(), patientId)){
+        UUID cachedOwner = patientCache.findIdByEmail(patientRequestDTO.getEmail());
+        boolean emailTaken = cachedOwner != null
+                ? !cachedOwner.equals(patientId)
+                : patientRepository.existsByEmailIgnoreCaseAndIdNot(patientRequestDTO.getEmail(), patientId);
+        if(emailTaken){
             throw new EmailAlreadyExistsException(
                     "A patient with this email already exists" + patientRequestDTO.getEmail());
         }
+        Map<String, Object> before = PatientEventMapper.fields(patient);
         patient.setName(patientRequestDTO.getName());
         patient.setAddress(patientRequestDTO.getAddress());
         patient.setEmail(patientRequestDTO.getEmail());
         patient.setDateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
+        List<String> changedFields = PatientEventMapper.changedFields(before, PatientEventMapper.fields(patient));
+
+        // flushed now so the version is bumped before it goes into the event, a concurrent update
+        // of the same patient fails here with an optimistic lock error instead of reusing the sequence
+        Patient updatedPatient = patientRepository.saveAndFlush(patient);
+        if (!changedFields.isEmpty()) {
+            outboxService.enqueuePatientEvent(updatedPatient, PatientEventType.PATIENT_UPDATED, changedFields);
+        }
 
-        Patient updatedPatient = patientRepository.save(patient);
-        return PatientMapper.toDTO(updatedPatient);
+        PatientResponseDTO patientResponseDTO = PatientMapper.toDTO(updatedPatient);
+        // other replicas drop their copy when the PATIENT_UPDATED event reaches them
+        TransactionUtils.afterCommit(() -> {
+            patientCache.put(patientResponseDTO);
+            patientSearchIndex.index(patientResponseDTO);
+        });
+        return patientResponseDTO;
     }
 
 
+    @Transactional
     public void deletePatient(UUID patientId){
-        patientRepository.deleteById(patientId);
+        patientRepository.findById(patientId).ifPresent(patient -> {
+            patientRepository.delete(patient);
+            outboxService.enqueuePatientEvent(patient, PatientEventType.PATIENT_DELETED);
+            TransactionUtils.afterCommit(() -> {
+                patientCache.invalidate(patientId);
+                patientSearchIndex.remove(patientId);
+            });
+        });
     }
 }
@@ -0,0 +1,233 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.cache.PatientCache;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.dto.PatientSearchResponseDTO;
+import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.exception.PatientNotFoundException;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.mapper.PatientEventMapper;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.model.PatientRow;
+import com.pm.patientservice.repository.PatientR2dbcRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.util.CursorCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@Profile("reactive")
+// PatientService for the reactive profile. Nothing here blocks an event loop thread: the database is reached
+// through R2DBC, billing through the async gRPC stub, and Kafka through the outbox like the servlet version
+public class ReactivePatientService {
+    private static final Logger log = LoggerFactory.getLogger(ReactivePatientService.class);
+
+    private static final String STREAM_SQL = "SELECT id, name, email, address, date_of_birth FROM patient ORDER BY id";
+    private static final String INSERT_OUTBOX_SQL = """
+            INSERT INTO outbox_event (id, aggregate_id, event_type, payload, created_at, trace_parent)
+            VALUES (:id, :aggregateId, :eventType, :payload, :createdAt, :traceParent)
+            """;
+
+    private final PatientR2dbcRepository patientRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final BillingServiceGrpcClient billingServiceGrpcClient;
+    private final OutboxService outboxService;
+    private final PatientService patientService;
+    private final PatientCache patientCache;
+    private final PatientSearchIndex patientSearchIndex;
+    private final int streamFetchSize;
+
+    public ReactivePatientService(PatientR2dbcRepository patientRepository, R2dbcEntityTemplate entityTemplate,
+                                  DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                                  BillingServiceGrpcClient billingServiceGrpcClient, OutboxService outboxService,
+                                  PatientService patientService, PatientCache patientCache,
+                                  PatientSearchIndex patientSearchIndex,
+                                  @Value("${patient.reactive.stream-fetch-size:500}") int streamFetchSize) {
+        this.patientRepository = patientRepository;
+        this.entityTemplate = entityTemplate;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.billingServiceGrpcClient = billingServiceGrpcClient;
+        this.outboxService = outboxService;
+        this.patientService = patientService;
+        this.patientCache = patientCache;
+        this.patientSearchIndex = patientSearchIndex;
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public Mono<PatientPageResponseDTO> getPatients(String cursor, int limit){
+        int pageSize = Math.max(1, Math.min(limit, PatientService.MAX_PAGE_SIZE));
+        return Mono.defer(() -> {
+            // Fetch one extra row so we know if there is another page without running a count query
+            Flux<PatientRow> rows = (cursor == null || cursor.isBlank())
+                    ? patientRepository.findFirstPage(pageSize + 1)
+                    : patientRepository.findPageAfter(CursorCodec.decode(cursor), pageSize + 1);
+            return rows.map(PatientMapper::toDTO).collectList();
+        }).map(patients -> {
+            boolean hasMore = patients.size() > pageSize;
+            List<PatientResponseDTO> page = hasMore ? patients.subList(0, pageSize) : patients;
+            String nextCursor = hasMore ? CursorCodec.encode(UUID.fromString(page.get(page.size() - 1).getId())) : null;
+            return new PatientPageResponseDTO(page, nextCursor);
+        });
+    }
+
+    // Rows are pulled from a cursor only as fast as the client reads the response, so a slow client
+    // holds back the database instead of filling the heap
+    public Flux<PatientResponseDTO> streamPatients(){
+        Flux<PatientResponseDTO> patients = databaseClient.sql(STREAM_SQL)
+                .filter(statement -> statement.fetchSize(streamFetchSize))
+                .map((row, metadata) -> {
+                    PatientResponseDTO patientResponseDTO = new PatientResponseDTO();
+                    patientResponseDTO.setId(row.get("id", UUID.class).toString());
+                    patientResponseDTO.setName(row.get("name", String.class));
+                    patientResponseDTO.setEmail(row.get("email", String.class));
+                    patientResponseDTO.setAddress(row.get("address", String.class));
+                    patientResponseDTO.setDateOfBirth(row.get("date_of_birth", LocalDate.class).toString());
+                    return patientResponseDTO;
+                })
+                .all();
+        // Postgres keeps the cursor open only inside a transaction
+        return transactionalOperator.transactional(patients);
+    }
+
+    public Mono<PatientResponseDTO> getPatient(UUID patientId){
+        PatientResponseDTO cached = patientCache.getIfPresent(patientId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return patientRepository.findById(patientId)
+                .map(PatientMapper::toDTO)
+                .doOnNext(patientCache::put)
+                .switchIfEmpty(Mono.error(() -> new PatientNotFoundException("Patient not found with ID: " + patientId)));
+    }
+
+    // The Postgres search index runs plain JDBC, so it stays off the event loop
+    public Mono<PatientSearchResponseDTO> searchPatients(String query, int page, int size){
+        return Mono.fromCallable(() -> patientService.searchPatients(query, page, size))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Billing is always requested after commit here, billing.create-mode=sync only applies to the servlet profile
+    public Mono<PatientResponseDTO> createPatient(PatientRequestDTO patientRequestDTO){
+        Mono<PatientRow> created = emailTaken(patientRequestDTO.getEmail(), null)
+                .flatMap(taken -> {
+                    if (taken) {
+                        return Mono.error(new EmailAlreadyExistsException(
+                                "A patient with this email already exists" + patientRequestDTO.getEmail()));
+                    }
+                    return entityTemplate.insert(PatientMapper.toRow(patientRequestDTO));
+                })
+                .flatMap(patient -> enqueuePatientEvent(patient, PatientEventType.PATIENT_CREATED,
+                        PatientEventMapper.defaultChangedFields(PatientEventMapper.fields(patient), PatientEventType.PATIENT_CREATED))
+                        .thenReturn(patient));
+
+        // the operator completes after commit, so everything below only sees committed patients
+        return transactionalOperator.transactional(created)
+                .doOnNext(this::requestBillingAccount)
+                .map(PatientMapper::toDTO)
+                .doOnNext(this::afterSave);
+    }
+
+    public Mono<PatientResponseDTO> updatePatient(UUID patientId, PatientRequestDTO patientRequestDTO){
+        Mono<PatientRow> updated = patientRepository.findById(patientId)
+                .switchIfEmpty(Mono.error(() -> new PatientNotFoundException("Patient not found with ID: " + patientId)))
+                .flatMap(patient -> emailTaken(patientRequestDTO.getEmail(), patientId).flatMap(taken -> {
+                    if (taken) {
+                        return Mono.error(new EmailAlreadyExistsException(
+                                "A patient with this email already exists" + patientRequestDTO.getEmail()));
+                    }
+                    PatientRow changed = patient.withDetails(patientRequestDTO.getName(),
+                            patientRequestDTO.getEmail(), patientRequestDTO.getAddress(),
+                            LocalDate.parse(patientRequestDTO.getDateOfBirth()));
+                    List<String> changedFields = PatientEventMapper.changedFields(
+                            PatientEventMapper.fields(patient), PatientEventMapper.fields(changed));
+                    if (changedFields.isEmpty()) {
+                        return Mono.just(patient);
+                    }
+                    // save bumps the version (optimistic lock), the event carries the new one
+                    return patientRepository.save(changed)
+                            .flatMap(saved -> enqueuePatientEvent(saved, PatientEventType.PATIENT_UPDATED, changedFields)
+                                    .thenReturn(saved));
+                }));
+
+        return transactionalOperator.transactional(updated)
+                .map(PatientMapper::toDTO)
+                .doOnNext(this::afterSave);
+    }
+
+    public Mono<Void> deletePatient(UUID patientId){
+        Mono<PatientRow> deleted = patientRepository.findById(patientId)
+                .flatMap(patient -> patientRepository.delete(patient)
+                        .then(enqueuePatientEvent(patient, PatientEventType.PATIENT_DELETED, List.of()))
+                        .thenReturn(patient));
+
+        return transactionalOperator.transactional(deleted)
+                .doOnNext(patient -> {
+                    patientCache.invalidate(patientId);
+                    patientSearchIndex.remove(patientId);
+                })
+                .then();
+    }
+
+    // a cached email is known to be taken, only a miss has to go to the database
+    private Mono<Boolean> emailTaken(String email, UUID patientId){
+        UUID cachedOwner = patientCache.findIdByEmail(email);
+        if (cachedOwner != null) {
+            return Mono.just(!cachedOwner.equals(patientId));
+        }
+        return patientId == null
+                ? patientRepository.existsByEmailIgnoreCase(email)
+                : patientRepository.existsByEmailIgnoreCaseAndIdNot(email, patientId);
+    }
+
+    // Joins the surrounding R2DBC transaction, published to Kafka by OutboxRelay once it commits
+    private Mono<Void> enqueuePatientEvent(PatientRow patient, PatientEventType eventType, List<String> changedFields){
+        OutboxEvent outboxEvent = outboxService.toOutboxEvent(PatientEventMapper.toEvent(patient, eventType, changedFields));
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT_OUTBOX_SQL)
+                .bind("id", UUID.randomUUID())
+                .bind("aggregateId", outboxEvent.getAggregateId())
+                .bind("eventType", outboxEvent.getEventType())
+                .bind("payload", ByteBuffer.wrap(outboxEvent.getPayload()))
+                .bind("createdAt", outboxEvent.getCreatedAt());
+        insert = outboxEvent.getTraceParent() == null
+                ? insert.bindNull("traceParent", String.class)
+                : insert.bind("traceParent", outboxEvent.getTraceParent());
+        return insert.then();
+    }
+
+    private void afterSave(PatientResponseDTO patient){
+        patientCache.put(patient);
+        patientSearchIndex.index(patient);
+    }
+
+    // Fire and forget, a failure leaves the patient PENDING for BillingAccountService.reconcile
+    private void requestBillingAccount(PatientRow patient){
+        Mono.fromFuture(() -> billingServiceGrpcClient.createBillingAccountAsync(
+                        patient.id().toString(), patient.name(), patient.email()))
+                .flatMap(response -> patientRepository.updateBillingAccount(
+                        patient.id(), response.getAccountId(), BillingStatus.ACTIVE.name()))
+                .subscribe(updated -> { }, error -> log.warn("Billing account for patient {} not created yet, will reconcile: {}",
+                        patient.id(), error.getMessage()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Turns the last id of a page into an opaque token so clients don't depend on how we paginate
+public class CursorCodec {
+
+    public static String encode(UUID lastId){
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UUID decode(String cursor){
+        try {
+            byte[] decoded = Base64.getUrlDecoder().decode(cursor);
+            return UUID.fromString(new String(decoded, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e){
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // null for the first page
+    public static UUID decodeOrNull(String cursor){
+        return (cursor == null || cursor.isBlank()) ? null : decode(cursor);
+    }
+}
@@ -0,0 +1,31 @@
+-- Same shape data.sql used to create. IF NOT EXISTS because databases created before Flyway are
+-- baselined at version 0 and run this too, it only adds what they are missing
+CREATE TABLE IF NOT EXISTS patient
+(
+    id                 UUID PRIMARY KEY,
+    name               VARCHAR(255)        NOT NULL,
+    email              VARCHAR(255) UNIQUE NOT NULL,
+    address            VARCHAR(255)        NOT NULL,
+    date_of_birth      DATE                NOT NULL,
+    registered_date    DATE                NOT NULL,
+    billing_account_id VARCHAR(255),
+    billing_status     VARCHAR(20),
+    version            BIGINT DEFAULT 0    NOT NULL
+);
+
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS billing_account_id VARCHAR(255);
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS billing_status VARCHAR(20);
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- Patient events waiting to be published to Kafka, see OutboxRelay
+CREATE TABLE IF NOT EXISTS outbox_event
+(
+    id           UUID PRIMARY KEY,
+    aggregate_id VARCHAR(255)             NOT NULL,
+    event_type   VARCHAR(255)             NOT NULL,
+    payload      BYTEA                    NOT NULL,
+    created_at   TIMESTAMP WITH TIME ZONE NOT NULL,
+    trace_parent VARCHAR(64)
+);
+
+ALTER TABLE outbox_event ADD COLUMN IF NOT EXISTS trace_parent VARCHAR(64);
@@ -0,0 +1,22 @@
+-- Demo patients, one statement for all of them. The NOT EXISTS keeps this safe on databases the old
+-- data.sql already seeded (they are baselined at version 0 and run every migration)
+INSERT INTO patient (id, name, email, address, date_of_birth, registered_date)
+SELECT v.id, v.name, v.email, v.address, v.date_of_birth, v.registered_date
+FROM (VALUES
+              (CAST('123e4567-e89b-12d3-a456-426614174000' AS UUID), 'John Doe', 'john.doe@example.com', '123 Main St, Springfield', DATE '1985-06-15', DATE '2024-01-10'),
+              (CAST('123e4567-e89b-12d3-a456-426614174001' AS UUID), 'Jane Smith', 'jane.smith@example.com', '456 Elm St, Shelbyville', DATE '1990-09-23', DATE '2023-12-01'),
+              (CAST('123e4567-e89b-12d3-a456-426614174002' AS UUID), 'Alice Johnson', 'alice.johnson@example.com', '789 Oak St, Capital City', DATE '1978-03-12', DATE '2022-06-20'),
+              (CAST('123e4567-e89b-12d3-a456-426614174003' AS UUID), 'Bob Brown', 'bob.brown@example.com', '321 Pine St, Springfield', DATE '1982-11-30', DATE '2023-05-14'),
+              (CAST('123e4567-e89b-12d3-a456-426614174004' AS UUID), 'Emily Davis', 'emily.davis@example.com', '654 Maple St, Shelbyville', DATE '1995-02-05', DATE '2024-03-01'),
+              (CAST('223e4567-e89b-12d3-a456-426614174005' AS UUID), 'Michael Green', 'michael.green@example.com', '987 Cedar St, Springfield', DATE '1988-07-25', DATE '2024-02-15'),
+              (CAST('223e4567-e89b-12d3-a456-426614174006' AS UUID), 'Sarah Taylor', 'sarah.taylor@example.com', '123 Birch St, Shelbyville', DATE '1992-04-18', DATE '2023-08-25'),
+              (CAST('223e4567-e89b-12d3-a456-426614174007' AS UUID), 'David Wilson', 'david.wilson@example.com', '456 Ash St, Capital City', DATE '1975-01-11', DATE '2022-10-10'),
+              (CAST('223e4567-e89b-12d3-a456-426614174008' AS UUID), 'Laura White', 'laura.white@example.com', '789 Palm St, Springfield', DATE '1989-09-02', DATE '2024-04-20'),
+              (CAST('223e4567-e89b-12d3-a456-426614174009' AS UUID), 'James Harris', 'james.harris@example.com', '321 Cherry St, Shelbyville', DATE '1993-11-15', DATE '2023-06-30'),
+              (CAST('223e4567-e89b-12d3-a456-426614174010' AS UUID), 'Emma Moore', 'emma.moore@example.com', '654 Spruce St, Capital City', DATE '1980-08-09', DATE '2023-01-22'),
+              (CAST('223e4567-e89b-12d3-a456-426614174011' AS UUID), 'Ethan Martinez', 'ethan.martinez@example.com', '987 Redwood St, Springfield', DATE '1984-05-03', DATE '2024-05-12'),
+              (CAST('223e4567-e89b-12d3-a456-426614174012' AS UUID), 'Sophia Clark', 'sophia.clark@example.com', '123 Hickory St, Shelbyville', DATE '1991-12-25', DATE '2022-11-11'),
+              (CAST('223e4567-e89b-12d3-a456-426614174013' AS UUID), 'Daniel Lewis', 'daniel.lewis@example.com', '456 Cypress St, Capital City', DATE '1976-06-08', DATE '2023-09-19'),
+              (CAST('223e4567-e89b-12d3-a456-426614174014' AS UUID), 'Isabella Walker', 'isabella.walker@example.com', '789 Willow St, Springfield', DATE '1987-10-17', DATE '2024-03-29')
+     ) AS v (id, name, email, address, date_of_birth, registered_date)
+WHERE NOT EXISTS (SELECT 1 FROM patient p WHERE p.id = v.id OR p.email = v.email);
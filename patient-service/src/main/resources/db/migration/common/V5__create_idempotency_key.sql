@@ -0,0 +1,14 @@
+-- Responses of POST/PUT /patients by Idempotency-Key, only written when patient.idempotency.persist=true.
+-- Keys are per client: client_hash is the SHA-256 of the verified JWT subject the gateway forwards.
+-- Rows older than patient.idempotency.ttl are purged by IdempotencyStore
+CREATE TABLE IF NOT EXISTS idempotency_key
+(
+    client_hash     VARCHAR(64)              NOT NULL,
+    idempotency_key VARCHAR(255)             NOT NULL,
+    request_hash    VARCHAR(64)              NOT NULL,
+    response        BYTEA                    NOT NULL,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (client_hash, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_created_at ON idempotency_key (created_at);
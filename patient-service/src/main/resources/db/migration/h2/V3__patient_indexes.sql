@@ -0,0 +1,4 @@
+-- H2 (local profile) has no expression or partial indexes, plain indexes on the same columns
+CREATE INDEX IF NOT EXISTS idx_patient_registered_date ON patient (registered_date);
+CREATE INDEX IF NOT EXISTS idx_patient_billing_status ON patient (billing_status);
+CREATE INDEX IF NOT EXISTS idx_outbox_event_created_at ON outbox_event (created_at);
@@ -0,0 +1,14 @@
+-- CONCURRENTLY so creating them on a large table doesn't block writes, see V3__patient_indexes.sql.conf
+
+-- Registrations by date (analytics backfills, reporting)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_registered_date ON patient (registered_date);
+
+-- Email checks ignore case (PatientRepository.existsByEmailIgnoreCase and friends compare lower(email)).
+-- Case-insensitive name lookups are the search queries, served by the trigram index on lower(name) in V4
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_email_lower ON patient (lower(email));
+
+-- BillingAccountService.reconcile only ever looks for PENDING patients, which are a tiny share of the table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_billing_pending ON patient (id) WHERE billing_status = 'PENDING';
+
+-- OutboxRelay drains the oldest events first
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_outbox_event_created_at ON outbox_event (created_at);
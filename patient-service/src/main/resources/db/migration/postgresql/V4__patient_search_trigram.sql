@@ -0,0 +1,7 @@
+-- Trigram indexes behind GET /patients/search, see PostgresPatientSearchIndex
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- CONCURRENTLY so creating them on a large table doesn't block writes, see V4__patient_search_trigram.sql.conf
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_name_trgm ON patient USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_email_trgm ON patient USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_address_trgm ON patient USING gin (lower(address) gin_trgm_ops);
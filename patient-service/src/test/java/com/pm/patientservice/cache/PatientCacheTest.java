@@ -0,0 +1,78 @@
+package com.pm.patientservice.cache;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PatientCacheTest {
+    private final PatientCache cache = new PatientCache(100, Duration.ofMinutes(10));
+
+    @Test
+    void loadsAPatientOnceAndIndexesItsEmail() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        PatientResponseDTO first = cache.get(id, key -> {
+            loads.incrementAndGet();
+            return patient(key, "jane@example.com");
+        });
+        PatientResponseDTO second = cache.get(id, key -> {
+            loads.incrementAndGet();
+            return patient(key, "jane@example.com");
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(id, cache.findIdByEmail("jane@example.com"));
+    }
+
+    @Test
+    void anEmailChangeReleasesTheOldEmail() {
+        UUID id = UUID.randomUUID();
+        cache.put(patient(id, "jane@example.com"));
+        cache.put(patient(id, "jane.smith@example.com"));
+
+        assertNull(cache.findIdByEmail("jane@example.com"));
+        assertEquals(id, cache.findIdByEmail("jane.smith@example.com"));
+        assertEquals("jane.smith@example.com", cache.getIfPresent(id).getEmail());
+    }
+
+    @Test
+    void invalidatingAPatientForgetsItsEmail() {
+        UUID id = UUID.randomUUID();
+        cache.put(patient(id, "jane@example.com"));
+
+        cache.invalidate(id);
+
+        assertNull(cache.getIfPresent(id));
+        assertNull(cache.findIdByEmail("jane@example.com"));
+    }
+
+    // the email moved to another patient before the old owner was invalidated
+    @Test
+    void invalidatingKeepsAnEmailThatMovedToSomeoneElse() {
+        UUID previousOwner = UUID.randomUUID();
+        UUID newOwner = UUID.randomUUID();
+        cache.put(patient(previousOwner, "jane@example.com"));
+        cache.put(patient(newOwner, "jane@example.com"));
+
+        cache.invalidate(previousOwner);
+
+        assertEquals(newOwner, cache.findIdByEmail("jane@example.com"));
+    }
+
+    private static PatientResponseDTO patient(UUID id, String email) {
+        PatientResponseDTO patient = new PatientResponseDTO();
+        patient.setId(id.toString());
+        patient.setName("Jane");
+        patient.setEmail(email);
+        return patient;
+    }
+}
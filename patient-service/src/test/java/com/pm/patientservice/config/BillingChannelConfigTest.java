@@ -0,0 +1,84 @@
+package com.pm.patientservice.config;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import com.pm.patientservice.grpc.BillingChannelPool;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Where billing response callbacks run, against a billing stub on a loopback port
+class BillingChannelConfigTest {
+    private Server server;
+    private BillingChannelPool channelPool;
+
+    @BeforeEach
+    void startBilling() throws Exception {
+        server = NettyServerBuilder.forPort(0)
+                .addService(new BillingServiceGrpc.BillingServiceImplBase() {
+                    @Override
+                    public void createBillingAccount(BillingRequest request, StreamObserver<BillingResponse> responseObserver) {
+                        responseObserver.onNext(BillingResponse.newBuilder().setAccountId("account-1").build());
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build().start();
+    }
+
+    @AfterEach
+    void stopBilling() throws InterruptedException {
+        channelPool.shutdown(1, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callbacksRunOnVirtualThreadsInVirtualThreadMode() throws Exception {
+        channelPool = pool(true);
+        assertTrue(callbackThread().isVirtual());
+    }
+
+    @Test
+    void callbacksRunOnGrpcThreadsOtherwise() throws Exception {
+        channelPool = pool(false);
+        assertFalse(callbackThread().isVirtual());
+    }
+
+    private BillingChannelPool pool(boolean virtualThreads) {
+        return new BillingChannelConfig().billingChannelPool("localhost", server.getPort(), 1, 256, 100,
+                Duration.ofSeconds(30), Duration.ofSeconds(5), 1 << 20, Duration.ofMinutes(5), virtualThreads,
+                ObservationRegistry.NOOP);
+    }
+
+    private Thread callbackThread() throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        BillingServiceGrpc.newStub(channelPool).createBillingAccount(BillingRequest.newBuilder().setPatientId("p1").build(),
+                new StreamObserver<>() {
+                    @Override
+                    public void onNext(BillingResponse response) {
+                        thread.complete(Thread.currentThread());
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        thread.completeExceptionally(t);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                    }
+                });
+        return thread.get(5, TimeUnit.SECONDS);
+    }
+}
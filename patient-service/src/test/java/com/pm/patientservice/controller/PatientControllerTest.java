@@ -0,0 +1,140 @@
+package com.pm.patientservice.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.pm.patientservice.config.PatientProtobufHttpMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import patient.api.PatientPage;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /patients against the seeded patients of the V2 migration. No gRPC server, each cached test context
+// would otherwise try to bind the same grpc.server.port
+@SpringBootTest(properties = "grpc.server.port=-1")
+@AutoConfigureMockMvc
+class PatientControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void listsPatientsAsJson() throws Exception {
+        mockMvc.perform(streamed(get("/patients").param("limit", "2").accept(MediaType.APPLICATION_JSON)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.patients", hasSize(2)))
+                .andExpect(jsonPath("$.patients[0].id").value(notNullValue()))
+                .andExpect(jsonPath("$.patients[0].name").value(notNullValue()))
+                .andExpect(jsonPath("$.patients[0].email").value(notNullValue()))
+                .andExpect(jsonPath("$.patients[0].address").value(notNullValue()))
+                .andExpect(jsonPath("$.patients[0].dateOfBirth").value(notNullValue()))
+                .andExpect(jsonPath("$.nextCursor").value(notNullValue()));
+    }
+
+    @Test
+    void listsPatientsAsJsonWithoutAcceptHeader() throws Exception {
+        mockMvc.perform(streamed(get("/patients")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.patients", not(hasSize(0))));
+    }
+
+    @Test
+    void followsTheCursorToTheLastPage() throws Exception {
+        String firstPage = mockMvc.perform(streamed(get("/patients").param("limit", "3")))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstPage, "$.nextCursor");
+        String firstId = JsonPath.read(firstPage, "$.patients[0].id");
+
+        String secondPage = mockMvc.perform(streamed(get("/patients").param("cursor", cursor).param("limit", "3")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> secondIds = JsonPath.read(secondPage, "$.patients[*].id");
+        assertFalse(secondIds.contains(firstId));
+
+        mockMvc.perform(streamed(get("/patients").param("limit", "500")))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void rejectsAnInvalidCursorBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/patients").param("cursor", "not-a-cursor"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void listsPatientsAsProtobuf() throws Exception {
+        MvcResult result = mockMvc.perform(get("/patients").param("limit", "2")
+                        .header(HttpHeaders.ACCEPT, PatientProtobufHttpMessageConverter.PROTOBUF_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(PatientProtobufHttpMessageConverter.PROTOBUF))
+                .andReturn();
+        PatientPage page = PatientPage.parseFrom(result.getResponse().getContentAsByteArray());
+        assertEquals(2, page.getPatientsCount());
+        assertFalse(page.getNextCursor().isEmpty());
+    }
+
+    @Test
+    void honoursQualityValuesInAccept() throws Exception {
+        mockMvc.perform(streamed(get("/patients").param("limit", "2")
+                        .header(HttpHeaders.ACCEPT, "application/json, application/x-protobuf;q=0")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/patients").param("limit", "2")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(PatientProtobufHttpMessageConverter.PROTOBUF));
+        mockMvc.perform(streamed(get("/patients/stream")
+                        .header(HttpHeaders.ACCEPT, "application/x-protobuf;q=0.1, application/x-ndjson")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+    }
+
+    @Test
+    void rejectsAMalformedAcceptHeader() throws Exception {
+        mockMvc.perform(get("/patients").header(HttpHeaders.ACCEPT, "application/"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/patients/stream").header(HttpHeaders.ACCEPT, "not a media type"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsASearchPageBeyondTheOffsetLimit() throws Exception {
+        mockMvc.perform(get("/patients/search").param("q", "john").param("page", "51").param("size", "20"))
+                .andExpect(status().isBadRequest());
+        // page * size would overflow an int
+        mockMvc.perform(get("/patients/search").param("q", "john")
+                        .param("page", String.valueOf(Integer.MAX_VALUE)).param("size", "100"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search results are limited to the first 1000 matches"));
+    }
+
+    // StreamingResponseBody is written on an async dispatch, MockMvc has to run it explicitly
+    private RequestBuilder streamed(RequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return asyncDispatch(started);
+    }
+}
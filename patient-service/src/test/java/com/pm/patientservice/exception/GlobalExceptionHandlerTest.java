@@ -0,0 +1,43 @@
+package com.pm.patientservice.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// With virtual threads requests outnumber pool connections, a request that can't get one must see 503, not 500
+class GlobalExceptionHandlerTest {
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ConnectionStarvedController())
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void mapsAnExhaustedConnectionPoolTo503() throws Exception {
+        mockMvc.perform(get("/transaction"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Service busy, try again later"));
+        mockMvc.perform(get("/query"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Service busy, try again later"));
+    }
+
+    @RestController
+    static class ConnectionStarvedController {
+        @GetMapping("/transaction")
+        String transaction() {
+            throw new CannotCreateTransactionException("Could not open JPA EntityManager for transaction");
+        }
+
+        @GetMapping("/query")
+        String query() {
+            throw new DataAccessResourceFailureException("Connection is not available, request timed out after 5000ms");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pm.patientservice.grpc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillingCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        BillingCircuitBreaker breaker = new BillingCircuitBreaker(3, 60_000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+        assertEquals(BillingCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void aSuccessResetsTheFailureCount() {
+        BillingCircuitBreaker breaker = new BillingCircuitBreaker(3, 60_000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(BillingCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    // open-ms 0, so the cool-down is over as soon as the breaker opens
+    @Test
+    void letsOneTrialThroughAfterTheCoolDown() {
+        BillingCircuitBreaker breaker = new BillingCircuitBreaker(1, 0);
+        breaker.recordFailure();
+
+        assertTrue(breaker.allowRequest());
+        assertEquals(BillingCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.recordSuccess();
+        assertEquals(BillingCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void aFailedTrialOpensAgain() {
+        BillingCircuitBreaker breaker = new BillingCircuitBreaker(5, 0);
+        for (int i = 0; i < 5; i++) {
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.allowRequest());
+
+        breaker.recordFailure();
+        assertEquals(BillingCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,107 @@
+package com.pm.patientservice.grpc;
+
+import billing.BillingAccountResult;
+import billing.BillingRequest;
+import billing.BillingResponse;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BillingRequestBatcherTest {
+    private final List<List<BillingRequest>> sentBatches = new CopyOnWriteArrayList<>();
+    private BillingRequestBatcher batcher;
+
+    @AfterEach
+    void stop() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void sendsConcurrentRequestsAsOneStream() throws Exception {
+        // a long delay, so only a full batch gets flushed right away
+        batcher = new BillingRequestBatcher(answering(this::activeResults), 10, 60_000, 100);
+
+        List<CompletableFuture<BillingResponse>> responses = IntStream.range(0, 10)
+                .mapToObj(i -> batcher.submit(request("p" + i)))
+                .toList();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("account-p" + i, responses.get(i).get(5, TimeUnit.SECONDS).getAccountId());
+        }
+        assertEquals(1, sentBatches.size());
+        assertEquals(10, sentBatches.get(0).size());
+    }
+
+    @Test
+    void flushesAPartialBatchAfterTheDelay() throws Exception {
+        batcher = new BillingRequestBatcher(answering(this::activeResults), 10, 5, 100);
+
+        assertEquals("account-p1", batcher.submit(request("p1")).get(5, TimeUnit.SECONDS).getAccountId());
+        assertEquals(1, sentBatches.get(0).size());
+    }
+
+    @Test
+    void failsOnlyTheRequestsBillingRejected() throws Exception {
+        batcher = new BillingRequestBatcher(answering(requests -> requests.stream()
+                .map(request -> request.getPatientId().equals("p1")
+                        ? BillingAccountResult.newBuilder().setPatientId("p1").setStatus("FAILED")
+                                .setError("patientId is required").build()
+                        : active(request))
+                .toList()), 2, 60_000, 100);
+
+        CompletableFuture<BillingResponse> first = batcher.submit(request("p0"));
+        CompletableFuture<BillingResponse> second = batcher.submit(request("p1"));
+
+        assertEquals("account-p0", first.get(5, TimeUnit.SECONDS).getAccountId());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals("patientId is required", failure.getCause().getMessage());
+    }
+
+    @Test
+    void aFailedStreamFailsTheWholeBatch() {
+        batcher = new BillingRequestBatcher(requests -> {
+            sentBatches.add(requests);
+            return CompletableFuture.failedFuture(Status.UNAVAILABLE.asRuntimeException());
+        }, 2, 60_000, 100);
+
+        CompletableFuture<BillingResponse> first = batcher.submit(request("p0"));
+        CompletableFuture<BillingResponse> second = batcher.submit(request("p1"));
+
+        for (CompletableFuture<BillingResponse> response : List.of(first, second)) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+            assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(failure.getCause()).getCode());
+        }
+    }
+
+    private Function<List<BillingRequest>, CompletableFuture<List<BillingAccountResult>>> answering(
+            Function<List<BillingRequest>, List<BillingAccountResult>> results) {
+        return requests -> {
+            sentBatches.add(requests);
+            return CompletableFuture.completedFuture(results.apply(requests));
+        };
+    }
+
+    private List<BillingAccountResult> activeResults(List<BillingRequest> requests) {
+        return requests.stream().map(BillingRequestBatcherTest::active).toList();
+    }
+
+    private static BillingAccountResult active(BillingRequest request) {
+        return BillingAccountResult.newBuilder().setPatientId(request.getPatientId())
+                .setAccountId("account-" + request.getPatientId()).setStatus("ACTIVE").build();
+    }
+
+    private static BillingRequest request(String patientId) {
+        return BillingRequest.newBuilder().setPatientId(patientId).setName("Jane").setEmail("jane@example.com").build();
+    }
+}
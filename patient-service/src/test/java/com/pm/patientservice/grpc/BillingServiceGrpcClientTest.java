@@ -0,0 +1,104 @@
+package com.pm.patientservice.grpc;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import com.pm.patientservice.exception.BillingUnavailableException;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Async billing calls against an in-process billing stub that fails the first calls with a given status
+class BillingServiceGrpcClientTest {
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int failures;
+    private volatile Status failWith = Status.UNAVAILABLE;
+
+    private Server server;
+    private BillingCircuitBreaker circuitBreaker;
+    private BillingServiceGrpcClient client;
+
+    @BeforeEach
+    void startBilling() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor()
+                .addService(new BillingServiceGrpc.BillingServiceImplBase() {
+                    @Override
+                    public void createBillingAccount(BillingRequest request, StreamObserver<BillingResponse> responseObserver) {
+                        if (calls.incrementAndGet() <= failures) {
+                            responseObserver.onError(failWith.asRuntimeException());
+                            return;
+                        }
+                        responseObserver.onNext(BillingResponse.newBuilder()
+                                .setAccountId("account-" + request.getPatientId()).setStatus("ACTIVE").build());
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build().start();
+        BillingChannelPool channelPool = BillingChannelPool.create(1,
+                () -> InProcessChannelBuilder.forName(name).directExecutor().build(), null);
+        circuitBreaker = new BillingCircuitBreaker(3, 60_000);
+        client = new BillingServiceGrpcClient(channelPool, 1000, 10, 4, 1, 5, 10, 5,
+                Duration.ofSeconds(1), circuitBreaker, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopBilling() throws InterruptedException {
+        client.shutdown();
+        server.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void retriesUnavailableUntilBillingAnswers() throws Exception {
+        failures = 2;
+
+        BillingResponse response = client.createBillingAccountAsync("p1", "Jane", "jane@example.com")
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("account-p1", response.getAccountId());
+        assertEquals(3, calls.get());
+        assertEquals(BillingCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void doesNotRetryRejectedRequests() {
+        failures = 1;
+        failWith = Status.INVALID_ARGUMENT;
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> client.createBillingAccountAsync("p1", "Jane", "jane@example.com").get(5, TimeUnit.SECONDS));
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(failure.getCause()).getCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failsFastOnceTheBreakerIsOpen() {
+        failures = Integer.MAX_VALUE;
+
+        // 4 attempts, the third failure opens the breaker and the fourth is never sent
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> client.createBillingAccountAsync("p1", "Jane", "jane@example.com").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BillingUnavailableException.class, failure.getCause());
+        assertEquals(3, calls.get());
+
+        assertThrows(BillingUnavailableException.class,
+                () -> client.createBillingAccount("p2", "John", "john@example.com"));
+        assertEquals(3, calls.get());
+    }
+}
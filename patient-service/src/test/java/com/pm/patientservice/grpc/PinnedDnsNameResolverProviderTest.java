@@ -0,0 +1,56 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolverRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class PinnedDnsNameResolverProviderTest {
+    private static final String AUTHORITY = "billing-service:9001";
+    private static final EquivalentAddressGroup A = group("10.0.0.1");
+    private static final EquivalentAddressGroup B = group("10.0.0.2");
+    private static final EquivalentAddressGroup C = group("10.0.0.3");
+
+    private final PinnedDnsNameResolverProvider provider = new PinnedDnsNameResolverProvider();
+
+    // channels resolve on their own and DNS may answer each in a different order
+    @Test
+    void everyResolutionGetsTheSameAddress() {
+        assertEquals(List.of(A), provider.pin(AUTHORITY, List.of(A, B)));
+        assertEquals(List.of(A), provider.pin(AUTHORITY, List.of(B, A)));
+        assertEquals(List.of(A), provider.pin(AUTHORITY, List.of(C, B, A)));
+    }
+
+    @Test
+    void movesOnOnceDnsNoLongerReturnsThePinnedAddress() {
+        provider.pin(AUTHORITY, List.of(A));
+
+        assertEquals(List.of(B), provider.pin(AUTHORITY, List.of(B, C)));
+        assertEquals(List.of(B), provider.pin(AUTHORITY, List.of(C, B)));
+    }
+
+    @Test
+    void eachTargetIsPinnedOnItsOwn() {
+        provider.pin(AUTHORITY, List.of(A, B));
+
+        assertEquals(List.of(B), provider.pin("billing-service:9002", List.of(B, A)));
+    }
+
+    @Test
+    void registersTheBillingDnsScheme() {
+        PinnedDnsNameResolverProvider.register();
+        PinnedDnsNameResolverProvider.register();
+
+        assertInstanceOf(PinnedDnsNameResolverProvider.class,
+                NameResolverRegistry.getDefaultRegistry().getProviderForScheme(PinnedDnsNameResolverProvider.SCHEME));
+    }
+
+    private static EquivalentAddressGroup group(String ip) {
+        return new EquivalentAddressGroup(new InetSocketAddress(ip, 9001));
+    }
+}
@@ -0,0 +1,192 @@
+package com.pm.patientservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.IdempotencyKeyInProgressException;
+import com.pm.patientservice.exception.IdempotencyKeyMismatchException;
+import com.pm.patientservice.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// In memory, persistence is off unless a test passes a mocked repository
+class IdempotencyStoreTest {
+    private static final String CLIENT = "client-a@example.com";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        IdempotencyStore store = store(100, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<IdempotencyStore.Result> first = executeAsync(store, CLIENT, "key", request("a@example.com"), blockingAction(release));
+        awaitRuns(1);
+
+        Future<IdempotencyStore.Result> duplicate = executeAsync(store, CLIENT, "key", request("a@example.com"), countingAction());
+        release.countDown();
+
+        IdempotencyStore.Result original = first.get(5, TimeUnit.SECONDS);
+        IdempotencyStore.Result replayed = duplicate.get(5, TimeUnit.SECONDS);
+        assertFalse(original.replayed());
+        assertTrue(replayed.replayed());
+        assertSame(original.response(), replayed.response());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sameKeyWithADifferentBodyIsRejected() {
+        IdempotencyStore store = store(100, Duration.ofSeconds(5));
+        store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction());
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> store.execute(CLIENT, "key", "POST /patients", request("b@example.com"), countingAction()));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void duplicateGivesUpWhileTheFirstRequestIsStillRunning() throws Exception {
+        IdempotencyStore store = store(100, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<IdempotencyStore.Result> first = executeAsync(store, CLIENT, "key", request("a@example.com"), blockingAction(release));
+        awaitRuns(1);
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction()));
+        release.countDown();
+        assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+    }
+
+    @Test
+    void failedRequestIsForgottenSoItsRetryRunsAgain() {
+        IdempotencyStore store = store(100, Duration.ofSeconds(5));
+        assertThrows(IllegalStateException.class, () -> store.execute(CLIENT, "key", "POST /patients",
+                request("a@example.com"), () -> {
+                    runs.incrementAndGet();
+                    throw new IllegalStateException("billing down");
+                }));
+
+        IdempotencyStore.Result retry = store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction());
+        assertFalse(retry.replayed());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void keysAreScopedToTheClient() {
+        IdempotencyStore store = store(100, Duration.ofSeconds(5));
+        store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction());
+
+        // another client's body would be a mismatch if keys were shared, and must not see the first response
+        IdempotencyStore.Result other = store.execute("client-b@example.com", "key", "POST /patients",
+                request("b@example.com"), countingAction());
+        assertFalse(other.replayed());
+        assertEquals(2, runs.get());
+    }
+
+    // the patient is already created, so a failed write of the stored copy must not fail the request or let a retry run it
+    @Test
+    void persistFailureKeepsTheCompletedResponse() {
+        IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+        when(repository.find(anyString(), anyString(), any())).thenReturn(Optional.empty());
+        when(repository.insert(anyString(), anyString(), anyString(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        IdempotencyStore store = new IdempotencyStore(100, 1, Duration.ofHours(1), Duration.ofSeconds(5), true,
+                repository, new ObjectMapper());
+
+        IdempotencyStore.Result original = store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction());
+        IdempotencyStore.Result retry = store.execute(CLIENT, "key", "POST /patients", request("a@example.com"), countingAction());
+        assertFalse(original.replayed());
+        assertTrue(retry.replayed());
+        assertSame(original.response(), retry.response());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void sizeCapNeverEvictsARunningRequest() throws Exception {
+        IdempotencyStore store = store(1, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+        Future<IdempotencyStore.Result> running = executeAsync(store, CLIENT, "running", request("a@example.com"), blockingAction(release));
+        awaitRuns(1);
+
+        // over the cap, but the only other entry is still running
+        store.execute(CLIENT, "other", "POST /patients", request("b@example.com"), countingAction());
+        Future<IdempotencyStore.Result> duplicate = executeAsync(store, CLIENT, "running", request("a@example.com"), countingAction());
+        release.countDown();
+
+        assertFalse(running.get(5, TimeUnit.SECONDS).replayed());
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+        assertEquals(2, runs.get());
+    }
+
+    private IdempotencyStore store(int maxSize, Duration waitTimeout) {
+        return new IdempotencyStore(maxSize, 1, Duration.ofHours(1), waitTimeout, false, null, new ObjectMapper());
+    }
+
+    private Future<IdempotencyStore.Result> executeAsync(IdempotencyStore store, String client, String key,
+                                                         PatientRequestDTO request, Supplier<PatientResponseDTO> action) {
+        return executor.submit(() -> store.execute(client, key, "POST /patients", request, action));
+    }
+
+    private Supplier<PatientResponseDTO> countingAction() {
+        return () -> {
+            runs.incrementAndGet();
+            return new PatientResponseDTO();
+        };
+    }
+
+    private Supplier<PatientResponseDTO> blockingAction(CountDownLatch release) {
+        return () -> {
+            runs.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new PatientResponseDTO();
+        };
+    }
+
+    private void awaitRuns(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runs.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, runs.get());
+    }
+
+    private static PatientRequestDTO request(String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("Jane Doe");
+        request.setEmail(email);
+        request.setAddress("1 Main Street");
+        request.setDateOfBirth("1990-01-01");
+        request.setRegisteredDate("2024-01-01");
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.exception.EventPublishException;
+import com.pm.patientservice.model.OutboxEvent;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelPropagator;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.micrometer.tracing.propagation.Propagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The outbox row keeps the request's traceparent, the relay publishes under a child of it on its own thread
+class EventTraceContextTest {
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder().build();
+    private final OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+            .setTracerProvider(tracerProvider)
+            .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+            .build();
+    private final io.opentelemetry.api.trace.Tracer otelTracer = openTelemetry.getTracer("test");
+    private final Tracer tracer = new OtelTracer(otelTracer, new OtelCurrentTraceContext(), event -> { });
+    private final Propagator propagator = new OtelPropagator(openTelemetry.getPropagators(), otelTracer);
+    private final EventTraceContext eventTraceContext = new EventTraceContext(
+            new StaticListableBeanFactory(Map.of("tracer", tracer)).getBeanProvider(Tracer.class),
+            new StaticListableBeanFactory(Map.of("propagator", propagator)).getBeanProvider(Propagator.class));
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @AfterEach
+    void tearDown() {
+        openTelemetry.close();
+    }
+
+    @Test
+    void capturesNothingOutsideOfATrace() {
+        assertNull(eventTraceContext.capture());
+    }
+
+    @Test
+    void childContinuesTheCapturedTrace() {
+        Span request = tracer.nextSpan().name("request").start();
+        String traceParent;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(request)) {
+            traceParent = eventTraceContext.capture();
+        } finally {
+            request.end();
+        }
+
+        Span child = eventTraceContext.startChild(traceParent, "patient-event publish");
+
+        assertEquals(request.context().traceId(), child.context().traceId());
+        assertEquals(request.context().spanId(), child.context().parentId());
+        child.end();
+    }
+
+    @Test
+    void publishesEachEventInsideTheTraceOfItsRequest() {
+        List<String> sentTraceIds = new ArrayList<>();
+        when(kafkaTemplate.send(eq(kafkaProducer.PATIENT_TOPIC), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            sentTraceIds.add(tracer.currentSpan().context().traceId());
+            return CompletableFuture.completedFuture(null);
+        });
+        Span first = tracer.nextSpan().name("first request").start();
+        Span second = tracer.nextSpan().name("second request").start();
+
+        new kafkaProducer(kafkaTemplate, eventTraceContext, 1000)
+                .sendBatch(List.of(event(traceParent(first)), event(traceParent(second))));
+
+        assertEquals(List.of(first.context().traceId(), second.context().traceId()), sentTraceIds);
+        first.end();
+        second.end();
+    }
+
+    @Test
+    void failedSendFailsTheBatch() {
+        when(kafkaTemplate.send(eq(kafkaProducer.PATIENT_TOPIC), anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThrows(EventPublishException.class,
+                () -> new kafkaProducer(kafkaTemplate, eventTraceContext, 1000).sendBatch(List.of(event(null))));
+    }
+
+    private String traceParent(Span span) {
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return eventTraceContext.capture();
+        }
+    }
+
+    private static OutboxEvent event(String traceParent) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(UUID.randomUUID().toString());
+        event.setPayload(new byte[]{1});
+        event.setTraceParent(traceParent);
+        return event;
+    }
+}
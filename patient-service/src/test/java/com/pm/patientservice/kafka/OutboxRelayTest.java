@@ -0,0 +1,100 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.exception.EventPublishException;
+import com.pm.patientservice.model.OutboxEvent;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.repository.OutboxRelayLock;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+    private static final int BATCH_SIZE = 2;
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final OutboxRelayLock relayLock = mock(OutboxRelayLock.class);
+    private final kafkaProducer producer = mock(kafkaProducer.class);
+    private final OutboxRelay relay = new OutboxRelay(repository, relayLock, producer,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), BATCH_SIZE);
+
+    @Test
+    void deletesABatchOnlyAfterItWasSent() {
+        List<OutboxEvent> batch = events(1);
+        when(relayLock.tryAcquire()).thenReturn(true);
+        when(repository.findAllByOrderByCreatedAtAsc(Limit.of(BATCH_SIZE))).thenReturn(batch);
+
+        relay.relay();
+
+        InOrder order = inOrder(producer, repository);
+        order.verify(producer).sendBatch(batch);
+        order.verify(repository).deleteAllInBatch(batch);
+    }
+
+    @Test
+    void keepsGoingWhileBatchesAreFull() {
+        List<OutboxEvent> first = events(BATCH_SIZE);
+        List<OutboxEvent> second = events(BATCH_SIZE);
+        List<OutboxEvent> last = events(1);
+        when(relayLock.tryAcquire()).thenReturn(true);
+        when(repository.findAllByOrderByCreatedAtAsc(Limit.of(BATCH_SIZE))).thenReturn(first, second, last);
+
+        relay.relay();
+
+        InOrder order = inOrder(producer);
+        order.verify(producer).sendBatch(first);
+        order.verify(producer).sendBatch(second);
+        order.verify(producer).sendBatch(last);
+        verify(repository, times(3)).deleteAllInBatch(any());
+    }
+
+    @Test
+    void failedSendKeepsTheRows() {
+        List<OutboxEvent> batch = events(1);
+        when(relayLock.tryAcquire()).thenReturn(true);
+        when(repository.findAllByOrderByCreatedAtAsc(Limit.of(BATCH_SIZE))).thenReturn(batch);
+        doThrow(new EventPublishException("broker down", null)).when(producer).sendBatch(batch);
+
+        relay.relay();
+
+        verify(repository, never()).deleteAllInBatch(any());
+    }
+
+    // another replica is relaying, reading here could publish a patient's later events before its earlier ones
+    @Test
+    void skipsTheTickWithoutTheRelayLock() {
+        when(relayLock.tryAcquire()).thenReturn(false);
+
+        relay.relay();
+
+        verify(repository, never()).findAllByOrderByCreatedAtAsc(any());
+        verify(producer, never()).sendBatch(any());
+    }
+
+    private static List<OutboxEvent> events(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            OutboxEvent event = new OutboxEvent();
+            event.setId(UUID.randomUUID());
+            event.setAggregateId(UUID.randomUUID().toString());
+            event.setEventType("PATIENT_CREATED");
+            event.setPayload(new byte[0]);
+            event.setCreatedAt(Instant.now());
+            return event;
+        }).toList();
+    }
+}
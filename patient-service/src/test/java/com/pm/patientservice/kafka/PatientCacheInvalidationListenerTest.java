@@ -0,0 +1,51 @@
+package com.pm.patientservice.kafka;
+
+import com.pm.patientservice.cache.PatientCache;
+import org.junit.jupiter.api.Test;
+import patient.events.PatientEvent;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PatientCacheInvalidationListenerTest {
+    private final PatientCache patientCache = mock(PatientCache.class);
+    private final PatientCacheInvalidationListener listener = new PatientCacheInvalidationListener(patientCache);
+
+    @Test
+    void evictsUpdatedAndDeletedPatients() {
+        UUID updated = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+
+        listener.onPatientEvent(event(updated, PatientEventType.PATIENT_UPDATED));
+        listener.onPatientEvent(event(deleted, PatientEventType.PATIENT_DELETED));
+
+        verify(patientCache).invalidate(updated);
+        verify(patientCache).invalidate(deleted);
+    }
+
+    // a new patient can't be cached on another replica yet
+    @Test
+    void keepsTheCacheOnCreate() {
+        listener.onPatientEvent(event(UUID.randomUUID(), PatientEventType.PATIENT_CREATED));
+
+        verify(patientCache, never()).invalidate(any());
+    }
+
+    @Test
+    void ignoresEventsItCannotRead() {
+        listener.onPatientEvent(new byte[]{(byte) 0xff});
+        listener.onPatientEvent(PatientEvent.newBuilder().setPatientId("not-a-uuid")
+                .setEventType(PatientEventType.PATIENT_UPDATED.name()).build().toByteArray());
+
+        verify(patientCache, never()).invalidate(any());
+    }
+
+    private static byte[] event(UUID patientId, PatientEventType type) {
+        return PatientEvent.newBuilder().setPatientId(patientId.toString()).setEventType(type.name())
+                .build().toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.patientservice.mapper;
+
+import com.pm.patientservice.kafka.PatientEventType;
+import com.pm.patientservice.model.Patient;
+import org.junit.jupiter.api.Test;
+import patient.events.PatientEvent;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatientEventMapperTest {
+
+    @Test
+    void createListsEveryFieldAndCarriesTheFullState() {
+        Patient patient = patient(0L);
+        Instant before = Instant.now();
+
+        PatientEvent event = PatientEventMapper.toEvent(patient, PatientEventType.PATIENT_CREATED,
+                PatientEventMapper.defaultChangedFields(PatientEventMapper.fields(patient), PatientEventType.PATIENT_CREATED));
+
+        assertEquals(PatientEventMapper.SCHEMA_VERSION, event.getSchemaVersion());
+        assertEquals(0, event.getSequence());
+        assertEquals(List.of("name", "email", "address", "date_of_birth", "registered_date"), event.getChangedFieldsList());
+        assertEquals("jane@example.com", event.getEmail());
+        assertEquals("1990-09-23", event.getDateOfBirth());
+        assertFalse(Instant.ofEpochSecond(event.getOccurredAt().getSeconds(), event.getOccurredAt().getNanos())
+                .isBefore(before.minusMillis(1)));
+    }
+
+    @Test
+    void updateListsOnlyTheFieldsThatChanged() {
+        Patient patient = patient(3L);
+        Map<String, Object> before = PatientEventMapper.fields(patient);
+        patient.setAddress("1 New Street");
+        patient.setDateOfBirth(LocalDate.of(1991, 1, 1));
+
+        List<String> changed = PatientEventMapper.changedFields(before, PatientEventMapper.fields(patient));
+
+        assertEquals(List.of("address", "date_of_birth"), changed);
+        assertEquals(3, PatientEventMapper.toEvent(patient, PatientEventType.PATIENT_UPDATED, changed).getSequence());
+        assertTrue(PatientEventMapper.changedFields(before, before).isEmpty());
+    }
+
+    // the delete doesn't bump the version, its event still sorts after the last update
+    @Test
+    void deleteComesAfterTheLastUpdate() {
+        Patient patient = patient(3L);
+
+        PatientEvent updated = PatientEventMapper.toEvent(patient, PatientEventType.PATIENT_UPDATED, List.of("name"));
+        PatientEvent deleted = PatientEventMapper.toEvent(patient, PatientEventType.PATIENT_DELETED,
+                PatientEventMapper.defaultChangedFields(PatientEventMapper.fields(patient), PatientEventType.PATIENT_DELETED));
+
+        assertEquals(updated.getSequence() + 1, deleted.getSequence());
+        assertTrue(deleted.getChangedFieldsList().isEmpty());
+    }
+
+    private static Patient patient(Long version) {
+        Patient patient = new Patient();
+        patient.setId(UUID.randomUUID());
+        patient.setName("Jane Smith");
+        patient.setEmail("jane@example.com");
+        patient.setAddress("456 Elm St");
+        patient.setDateOfBirth(LocalDate.of(1990, 9, 23));
+        patient.setRegisterDate(LocalDate.of(2023, 12, 1));
+        patient.setVersion(version);
+        return patient;
+    }
+}
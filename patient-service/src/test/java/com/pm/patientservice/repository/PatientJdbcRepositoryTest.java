@@ -0,0 +1,60 @@
+package com.pm.patientservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Keyset pages over the 15 patients seeded by V2
+@DataJpaTest
+@Import(PatientJdbcRepository.class)
+class PatientJdbcRepositoryTest {
+    private static final int SEEDED = 15;
+
+    @Autowired
+    private PatientJdbcRepository patientJdbcRepository;
+
+    @Test
+    void pagesVisitEveryPatientOnceInIdOrder() {
+        List<UUID> visited = new ArrayList<>();
+        UUID after = null;
+        List<UUID> page;
+        do {
+            page = page(after, 4);
+            assertTrue(page.size() <= 4);
+            visited.addAll(page);
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == 4);
+
+        assertEquals(SEEDED, visited.size());
+        assertEquals(visited.stream().sorted().toList(), visited);
+        assertEquals(SEEDED, visited.stream().distinct().count());
+    }
+
+    @Test
+    void pageAfterTheLastIdIsEmpty() {
+        List<UUID> all = page(null, SEEDED);
+        assertEquals(SEEDED, all.size());
+        assertEquals(List.of(), page(all.get(SEEDED - 1), 10));
+    }
+
+    @Test
+    void streamsEveryPatientInIdOrder() {
+        List<UUID> streamed = new ArrayList<>();
+        patientJdbcRepository.streamAll(rs -> streamed.add(rs.getObject(1, UUID.class)));
+        assertEquals(page(null, SEEDED + 1), streamed);
+    }
+
+    private List<UUID> page(UUID after, int limit) {
+        List<UUID> ids = new ArrayList<>();
+        patientJdbcRepository.findPage(after, limit, rs -> ids.add(rs.getObject(1, UUID.class)));
+        return ids;
+    }
+}
@@ -0,0 +1,188 @@
+package com.pm.patientservice.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.repository.QueryCapturingDataSource.CapturedQuery;
+import com.pm.patientservice.repository.QueryCapturingDataSource.NullParameter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Query plan check, only runs against a real Postgres:
+//   mvn test -Dtest=PatientRepositoryQueryPlanTest -Dquery-plans.jdbc-url=jdbc:postgresql://localhost:5432/plans
+// Migrates the database, fills patient up to query-plans.rows, then runs every patient query,
+// EXPLAINs it with the parameters it was sent with and fails on a sequential scan of patient.
+// Use a throwaway database, the generated rows are left in place for the next run
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PatientJdbcRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "query-plans.jdbc-url", matches = ".+")
+class PatientRepositoryQueryPlanTest {
+    private static final int ROWS = Integer.getInteger("query-plans.rows", 200_000);
+    private static final int SEED_BATCH = 50_000;
+    private static final String SEED_SQL = """
+            INSERT INTO patient (id, name, email, address, date_of_birth, registered_date,
+                                 billing_account_id, billing_status)
+            SELECT gen_random_uuid(), 'Plan Test ' || g, 'plan-test-' || g || '@example.com', g || ' Plan St',
+                   DATE '1950-01-01' + (g % 20000), DATE '2020-01-01' + (g % 1500), 'acct-' || g,
+                   CASE WHEN g % 500 = 0 THEN 'PENDING' ELSE 'ACTIVE' END
+            FROM generate_series(?, ?) AS g
+            """;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("query-plans.jdbc-url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("query-plans.username", "admin_user"));
+        registry.add("spring.datasource.password", () -> System.getProperty("query-plans.password", "password"));
+    }
+
+    @TestConfiguration
+    static class CaptureConfig {
+        @Bean
+        static BeanPostProcessor queryCapturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof QueryCapturingDataSource)
+                            ? new QueryCapturingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private PatientJdbcRepository patientJdbcRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void fillTable() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM patient", Long.class);
+        for (long from = rows == null ? 0 : rows; from < ROWS; from += SEED_BATCH) {
+            jdbcTemplate.update(SEED_SQL, from + 1, Math.min(ROWS, from + SEED_BATCH));
+        }
+        // the planner only picks the indexes once it knows how big the table is
+        jdbcTemplate.execute("ANALYZE patient");
+    }
+
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        UUID id = jdbcTemplate.queryForObject("SELECT id FROM patient ORDER BY id LIMIT 1 OFFSET 1000", UUID.class);
+        String email = jdbcTemplate.queryForObject("SELECT email FROM patient WHERE id = ?", String.class, id);
+        Map<String, Runnable> queries = queries(id, email);
+
+        // a new repository method has to be added to queries() so its plan is checked too
+        Set<String> declared = Arrays.stream(PatientRepository.class.getDeclaredMethods())
+                .map(Method::getName).collect(Collectors.toCollection(TreeSet::new));
+        assertTrue(queries.keySet().containsAll(declared),
+                "No plan check for " + declared.stream().filter(name -> !queries.containsKey(name)).toList());
+
+        QueryCapturingDataSource capturing = dataSource.unwrap(QueryCapturingDataSource.class);
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            List<CapturedQuery> statements = capturing.capture(() -> rollback.executeWithoutResult(status -> {
+                query.getValue().run();
+                status.setRollbackOnly();
+            }));
+            assertFalse(statements.isEmpty(), query.getKey() + " ran no SQL");
+            for (CapturedQuery statement : statements) {
+                JsonNode plan = explain(statement);
+                if (scansPatient(plan.get(0).get("Plan"))) {
+                    failures.add(query.getKey() + ": " + statement.sql() + "\n" + plan.toPrettyString());
+                }
+            }
+        }
+        assertEquals(List.of(), failures, "Sequential scans of patient at " + ROWS + " rows");
+    }
+
+    // Derived and @Query methods of PatientRepository, the inherited ones the services call by key,
+    // and the keyset page the listing reads through PatientJdbcRepository
+    private Map<String, Runnable> queries(UUID id, String email) {
+        RowCallbackHandler ignore = rs -> { };
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("existsByEmailIgnoreCase", () -> patientRepository.existsByEmailIgnoreCase(email.toUpperCase(Locale.ROOT)));
+        queries.put("existsByEmailIgnoreCaseAndIdNot", () -> patientRepository.existsByEmailIgnoreCaseAndIdNot(email, UUID.randomUUID()));
+        queries.put("findExistingEmails", () -> patientRepository.findExistingEmails(List.of(email, "missing@example.com")));
+        queries.put("findByBillingStatus", () -> patientRepository.findByBillingStatus(BillingStatus.PENDING, Limit.of(100)));
+        queries.put("updateBillingAccount", () -> patientRepository.updateBillingAccount(id, "acct-plan", BillingStatus.ACTIVE));
+        queries.put("findById", () -> patientRepository.findById(id));
+        queries.put("findPage(first)", () -> patientJdbcRepository.findPage(null, 51, ignore));
+        queries.put("findPage(after)", () -> patientJdbcRepository.findPage(id, 51, ignore));
+        return queries;
+    }
+
+    private JsonNode explain(CapturedQuery query) throws Exception {
+        try (var connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + query.sql())) {
+            List<Object> parameters = query.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) instanceof NullParameter nullParameter) {
+                    statement.setNull(i + 1, nullParameter.sqlType());
+                } else {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return objectMapper.readTree(resultSet.getString(1));
+            }
+        }
+    }
+
+    private static boolean scansPatient(JsonNode node) {
+        if ("Seq Scan".equals(node.path("Node Type").asText()) && "patient".equals(node.path("Relation Name").asText())) {
+            return true;
+        }
+        for (JsonNode child : node.path("Plans")) {
+            if (scansPatient(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Email checks against the patients seeded by V2, on the embedded H2 the migrations run on
+@DataJpaTest
+class PatientRepositoryTest {
+    private static final String SEEDED_EMAIL = "john.doe@example.com";
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Test
+    void emailChecksIgnoreCase() {
+        assertTrue(patientRepository.existsByEmailIgnoreCase("John.Doe@Example.COM"));
+        assertFalse(patientRepository.existsByEmailIgnoreCase("nobody@example.com"));
+    }
+
+    @Test
+    void emailCheckOnUpdateIgnoresThePatientItself() {
+        Patient owner = patientRepository.findAll().stream()
+                .filter(patient -> patient.getEmail().equals(SEEDED_EMAIL))
+                .findFirst().orElseThrow();
+
+        assertFalse(patientRepository.existsByEmailIgnoreCaseAndIdNot("JOHN.DOE@example.com", owner.getId()));
+        assertTrue(patientRepository.existsByEmailIgnoreCaseAndIdNot("JOHN.DOE@example.com", UUID.randomUUID()));
+    }
+
+    @Test
+    void findsExistingEmailsInLowerCase() {
+        assertEquals(List.of(SEEDED_EMAIL),
+                patientRepository.findExistingEmails(List.of(SEEDED_EMAIL, "missing@example.com")));
+    }
+}
@@ -0,0 +1,96 @@
+package com.pm.patientservice.repository;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Records the SQL and bound parameters of every prepared statement run while capturing, so the test can
+// replay each one under EXPLAIN with the values the repository actually sent
+class QueryCapturingDataSource extends DelegatingDataSource {
+    record CapturedQuery(String sql, List<Object> parameters) {
+    }
+
+    // setNull(index, sqlType) is replayed as a typed null
+    record NullParameter(int sqlType) {
+    }
+
+    private final List<CapturedQuery> captured = new ArrayList<>();
+    private volatile boolean capturing;
+
+    QueryCapturingDataSource(DataSource target) {
+        super(target);
+    }
+
+    synchronized List<CapturedQuery> capture(Runnable work) {
+        captured.clear();
+        capturing = true;
+        try {
+            work.run();
+        } finally {
+            capturing = false;
+        }
+        return List.copyOf(captured);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (capturing && result instanceof PreparedStatement statement
+                            && method.getName().equals("prepareStatement")) {
+                        return wrap(statement, (String) args[0]);
+                    }
+                    return result;
+                });
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("setNull") && args.length >= 2) {
+                parameters.put((Integer) args[0], new NullParameter((Integer) args[1]));
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.startsWith("execute")) {
+                synchronized (this) {
+                    captured.add(new CapturedQuery(sql, new ArrayList<>(parameters.values())));
+                }
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+            return invoke(statement, method, args);
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
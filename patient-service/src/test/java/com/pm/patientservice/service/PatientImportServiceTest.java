@@ -0,0 +1,50 @@
+package com.pm.patientservice.service;
+
+import com.pm.patientservice.dto.PatientImportResponseDTO;
+import com.pm.patientservice.dto.PatientImportResultDTO;
+import com.pm.patientservice.repository.PatientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+// No gRPC server, each cached test context would otherwise try to bind the same grpc.server.port
+@SpringBootTest(properties = "grpc.server.port=-1")
+class PatientImportServiceTest {
+    @Autowired
+    private PatientImportService patientImportService;
+    @MockitoSpyBean
+    private PatientRepository patientRepository;
+
+    // Another request inserts john.doe@example.com (seeded by V2) between our email lookup and the insert
+    @Test
+    void chunkCollidingOnEmailIsReportedAsFailed() throws Exception {
+        doReturn(List.of()).when(patientRepository).findExistingEmails(any());
+        String body = """
+                {"name":"Import New","email":"import.new@example.com","address":"1 Import St","dateOfBirth":"1990-01-01","registeredDate":"2024-01-01"}
+                {"name":"John Doe","email":"john.doe@example.com","address":"123 Main St","dateOfBirth":"1985-06-15","registeredDate":"2024-01-10"}
+                """;
+
+        PatientImportResponseDTO response = patientImportService.importPatients(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_NDJSON);
+
+        List<PatientImportResultDTO> results = response.getResults();
+        assertEquals(2, results.size());
+        for (PatientImportResultDTO result : results) {
+            assertEquals("FAILED", result.getStatus());
+            assertEquals("Conflicting write, chunk rolled back", result.getMessage());
+        }
+        // the whole chunk was rolled back, not only the conflicting row
+        assertFalse(patientRepository.existsByEmailIgnoreCase("import.new@example.com"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.pm.patientservice.service;
+
+import billing.BillingResponse;
+import com.pm.patientservice.cache.PatientCache;
+import com.pm.patientservice.dto.PatientPageResponseDTO;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.kafka.EventTraceContext;
+import com.pm.patientservice.model.BillingStatus;
+import com.pm.patientservice.model.PatientRow;
+import com.pm.patientservice.repository.OutboxEventRepository;
+import com.pm.patientservice.repository.PatientR2dbcRepository;
+import com.pm.patientservice.search.PatientSearchIndex;
+import com.pm.patientservice.util.CursorCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import patient.events.PatientEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The reactive service against mocked R2DBC access. The transactional operator passes publishers through and
+// every outbox insert is decoded back into the PatientEvent it carries
+class ReactivePatientServiceTest {
+    private final PatientR2dbcRepository patientRepository = mock(PatientR2dbcRepository.class);
+    private final R2dbcEntityTemplate entityTemplate = mock(R2dbcEntityTemplate.class);
+    private final DatabaseClient databaseClient = mock(DatabaseClient.class);
+    private final TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+    private final BillingServiceGrpcClient billingServiceGrpcClient = mock(BillingServiceGrpcClient.class);
+    private final PatientCache patientCache = new PatientCache(100, Duration.ofMinutes(10));
+    private final List<PatientEvent> outboxEvents = new ArrayList<>();
+
+    private ReactivePatientService service;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> outboxInsert());
+        OutboxService outboxService = new OutboxService(mock(OutboxEventRepository.class), mock(EventTraceContext.class));
+        service = new ReactivePatientService(patientRepository, entityTemplate, databaseClient, transactionalOperator,
+                billingServiceGrpcClient, outboxService, null, patientCache, mock(PatientSearchIndex.class), 500);
+    }
+
+    @Test
+    void pagesByCursor() {
+        List<PatientRow> rows = List.of(row("a@example.com"), row("b@example.com"), row("c@example.com"));
+        when(patientRepository.findFirstPage(3)).thenReturn(Flux.fromIterable(rows));
+        when(patientRepository.findPageAfter(rows.get(1).id(), 3)).thenReturn(Flux.just(rows.get(2)));
+
+        PatientPageResponseDTO first = service.getPatients(null, 2).block();
+        assertEquals(2, first.getPatients().size());
+        assertEquals(CursorCodec.encode(rows.get(1).id()), first.getNextCursor());
+
+        PatientPageResponseDTO last = service.getPatients(first.getNextCursor(), 2).block();
+        assertEquals(rows.get(2).id().toString(), last.getPatients().get(0).getId());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void createWritesTheEventAndRequestsBillingAfterCommit() {
+        when(patientRepository.existsByEmailIgnoreCase("jane@example.com")).thenReturn(Mono.just(false));
+        when(entityTemplate.insert(any(PatientRow.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(billingServiceGrpcClient.createBillingAccountAsync(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(BillingResponse.newBuilder().setAccountId("account-1").build()));
+        when(patientRepository.updateBillingAccount(any(), anyString(), anyString())).thenReturn(Mono.just(1));
+
+        PatientResponseDTO created = service.createPatient(request("jane@example.com")).block();
+
+        assertEquals(1, outboxEvents.size());
+        assertEquals("PATIENT_CREATED", outboxEvents.get(0).getEventType());
+        assertEquals(created.getId(), outboxEvents.get(0).getPatientId());
+        verify(patientRepository, timeout(1000)).updateBillingAccount(UUID.fromString(created.getId()), "account-1",
+                BillingStatus.ACTIVE.name());
+        assertEquals(UUID.fromString(created.getId()), patientCache.findIdByEmail("jane@example.com"));
+    }
+
+    @Test
+    void createRejectsATakenEmailBeforeInserting() {
+        when(patientRepository.existsByEmailIgnoreCase("jane@example.com")).thenReturn(Mono.just(true));
+
+        assertThrows(EmailAlreadyExistsException.class, () -> service.createPatient(request("jane@example.com")).block());
+        verify(entityTemplate, never()).insert(any(PatientRow.class));
+        assertTrue(outboxEvents.isEmpty());
+    }
+
+    @Test
+    void updateOnlyEmitsWhenSomethingChanged() {
+        PatientRow stored = row("jane@example.com");
+        when(patientRepository.findById(stored.id())).thenReturn(Mono.just(stored));
+        when(patientRepository.existsByEmailIgnoreCaseAndIdNot("jane@example.com", stored.id())).thenReturn(Mono.just(false));
+        when(patientRepository.save(any(PatientRow.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        service.updatePatient(stored.id(), request("jane@example.com")).block();
+        assertTrue(outboxEvents.isEmpty());
+        verify(patientRepository, never()).save(any(PatientRow.class));
+
+        PatientRequestDTO moved = request("jane@example.com");
+        moved.setAddress("1 New Street");
+        service.updatePatient(stored.id(), moved).block();
+        assertEquals(List.of("address"), outboxEvents.get(0).getChangedFieldsList());
+    }
+
+    @Test
+    void servesCachedPatientsWithoutTheDatabase() {
+        PatientRow stored = row("jane@example.com");
+        when(patientRepository.findById(stored.id())).thenReturn(Mono.just(stored));
+
+        service.getPatient(stored.id()).block();
+        service.getPatient(stored.id()).block();
+
+        verify(patientRepository).findById(stored.id());
+    }
+
+    // bind and bindNull return the spec itself, the payload bound last is the event to publish
+    private DatabaseClient.GenericExecuteSpec outboxInsert() {
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class, invocation -> {
+            if (invocation.getMethod().getName().equals("bind") && invocation.getArgument(1) instanceof ByteBuffer payload) {
+                outboxEvents.add(PatientEvent.parseFrom(payload.duplicate()));
+            }
+            if (invocation.getMethod().getReturnType() == DatabaseClient.GenericExecuteSpec.class) {
+                return invocation.getMock();
+            }
+            return invocation.getMethod().getName().equals("then") ? Mono.empty() : null;
+        });
+        return spec;
+    }
+
+    private static PatientRow row(String email) {
+        return new PatientRow(UUID.randomUUID(), "Jane Smith", email, "456 Elm St", LocalDate.of(1990, 9, 23),
+                LocalDate.of(2023, 12, 1), null, BillingStatus.PENDING, 0L);
+    }
+
+    private static PatientRequestDTO request(String email) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("Jane Smith");
+        request.setEmail(email);
+        request.setAddress("456 Elm St");
+        request.setDateOfBirth("1990-09-23");
+        request.setRegisteredDate("2023-12-01");
+        return request;
+    }
+}
@@ -0,0 +1,34 @@
+package com.pm.patientservice.util;
+
+import com.pm.patientservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        UUID id = UUID.randomUUID();
+        assertEquals(id, CursorCodec.decode(CursorCodec.encode(id)));
+    }
+
+    @Test
+    void noCursorMeansTheFirstPage() {
+        assertNull(CursorCodec.decodeOrNull(null));
+        assertNull(CursorCodec.decodeOrNull(" "));
+    }
+
+    @Test
+    void rejectsCursorsItDidNotIssue() {
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode("not base64!"));
+        String notAnId = Base64.getUrlEncoder().encodeToString("patient-1".getBytes(StandardCharsets.UTF_8));
+        assertThrows(InvalidCursorException.class, () -> CursorCodec.decode(notAnId));
+    }
+}